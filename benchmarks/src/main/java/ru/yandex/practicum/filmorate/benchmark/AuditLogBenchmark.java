@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import ru.yandex.practicum.filmorate.audit.AuditEvent;
+import ru.yandex.practicum.filmorate.audit.AuditLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditLogBenchmark {
+
+    @Param({"DROP", "BLOCK"})
+    AuditLog.Overflow overflow;
+
+    private AuditLog auditLog;
+
+    @State(Scope.Thread)
+    public static class Producer {
+        long userId;
+        long filmId;
+
+        @Setup(Level.Trial)
+        public void pickUser(ThreadParams threadParams) {
+            userId = threadParams.getThreadIndex() + 1;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcome {
+        public long accepted;
+        public long dropped;
+        public long written;
+
+        private boolean reporter;
+        private long acceptedBefore;
+        private long droppedBefore;
+        private long writtenBefore;
+
+        @Setup(Level.Iteration)
+        public void snapshot(AuditLogBenchmark benchmark, ThreadParams threadParams) {
+            reporter = threadParams.getThreadIndex() == 0;
+            accepted = 0;
+            dropped = 0;
+            written = 0;
+            acceptedBefore = benchmark.auditLog.accepted();
+            droppedBefore = benchmark.auditLog.dropped();
+            writtenBefore = benchmark.auditLog.written();
+        }
+
+        @TearDown(Level.Iteration)
+        public void report(AuditLogBenchmark benchmark) {
+            if (reporter) {
+                accepted = benchmark.auditLog.accepted() - acceptedBefore;
+                dropped = benchmark.auditLog.dropped() - droppedBefore;
+                written = benchmark.auditLog.written() - writtenBefore;
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        auditLog = new AuditLog(true, Files.createTempDirectory("filmorate-audit-bench").toString(), 65536, 4096,
+                50, 64L * 1024 * 1024, 4, overflow, 5);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        auditLog.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void record1Thread(Producer producer, Outcome outcome) {
+        record(producer);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void record4Threads(Producer producer, Outcome outcome) {
+        record(producer);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void record16Threads(Producer producer, Outcome outcome) {
+        record(producer);
+    }
+
+    private void record(Producer producer) {
+        auditLog.record(AuditEvent.LIKE, producer.userId, ++producer.filmId);
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.event.DomainEvent;
+import ru.yandex.practicum.filmorate.event.DomainEventBus;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmSearchService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class FilmSearchBenchmark {
+
+    private static final String[] SYLLABLES = {"ка", "ро", "ми", "ла", "то", "се", "ну", "да", "бе", "ри",
+            "ко", "ва", "ль", "ст", "мо", "пе", "ти", "зо", "на", "го"};
+    private static final int VOCABULARY_SIZE = 20_000;
+    private static final int QUERIES = 1024;
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    @Param({"word", "prefix", "twoWords"})
+    String query;
+
+    private InMemoryFilmStorage storage;
+    private FilmSearchService searchService;
+    private final String[] vocabulary = new String[VOCABULARY_SIZE];
+    private final String[] queries = new String[QUERIES];
+
+    @Setup(Level.Trial)
+    public void seed() {
+        Random random = new Random(42);
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int value = i; word.isEmpty() || value > 0; value /= SYLLABLES.length) {
+                word.append(SYLLABLES[value % SYLLABLES.length]);
+            }
+            vocabulary[i] = word.toString();
+        }
+
+        storage = Fixtures.filmStorage();
+        for (int seeded = 0; seeded < size; seeded += 10_000) {
+            List<Film> batch = new ArrayList<>(10_000);
+            for (int i = seeded; i < Math.min(size, seeded + 10_000); i++) {
+                Film film = Fixtures.film(i);
+                film.setName(text(random, 2 + random.nextInt(3)));
+                film.setDescription(text(random, 8 + random.nextInt(10)));
+                batch.add(film);
+            }
+            storage.createAll(batch);
+        }
+        searchService = new FilmSearchService(storage, DomainEventBus.disabled(), 100, 10_000, 3);
+        searchService.onStart();
+
+        for (int i = 0; i < QUERIES; i++) {
+            String word = vocabulary[zipf(random)];
+            queries[i] = switch (query) {
+                case "prefix" -> word.substring(0, Math.min(word.length(), 3));
+                case "twoWords" -> word + " " + vocabulary[zipf(random)];
+                default -> word;
+            };
+        }
+    }
+
+    @Benchmark
+    public List<Film> search() {
+        return searchService.search(queries[ThreadLocalRandom.current().nextInt(QUERIES)], 20);
+    }
+
+    @Benchmark
+    public void reindex() {
+        Film film = storage.findById(1 + ThreadLocalRandom.current().nextLong(size));
+        film.setDescription(text(ThreadLocalRandom.current(), 12));
+        searchService.onEvents(List.of(new DomainEvent.FilmUpdated(film.getId())));
+    }
+
+    private String text(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(vocabulary[zipf(random)]);
+        }
+        return text.toString();
+    }
+
+    private static int zipf(Random random) {
+        return (int) Math.min(VOCABULARY_SIZE - 1, Math.pow(VOCABULARY_SIZE, random.nextDouble()) - 1);
+    }
+}
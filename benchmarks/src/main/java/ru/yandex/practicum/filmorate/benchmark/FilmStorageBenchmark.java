@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public class FilmStorageBenchmark {
+
+    private static final int CREATE_BATCH = 10_000;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int size;
+
+    private InMemoryFilmStorage storage;
+    private final AtomicLong filmNumbers = new AtomicLong();
+    private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+
+    @Setup(Level.Trial)
+    public void seed() {
+        storage = Fixtures.filmStorage();
+        Fixtures.seedFilms(storage, size);
+    }
+
+    @TearDown(Level.Iteration)
+    public void dropCreated() {
+        Long filmId;
+        while ((filmId = createdIds.poll()) != null) {
+            storage.deleteFilmById(filmId);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, batchSize = CREATE_BATCH)
+    @Measurement(iterations = 20, batchSize = CREATE_BATCH)
+    public Film create() {
+        Film film = storage.create(Fixtures.film(filmNumbers.incrementAndGet()));
+        createdIds.add(film.getId());
+        return film;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public List<ImportResult> createAll() {
+        List<Film> films = new ArrayList<>(CREATE_BATCH);
+        for (int i = 0; i < CREATE_BATCH; i++) {
+            films.add(Fixtures.film(filmNumbers.incrementAndGet()));
+        }
+        List<ImportResult> results = storage.createAll(films);
+        for (ImportResult result : results) {
+            createdIds.add(result.getId());
+        }
+        return results;
+    }
+
+    @Benchmark
+    public Film findById() {
+        return storage.findById(1 + ThreadLocalRandom.current().nextLong(size));
+    }
+
+    @Benchmark
+    public List<Film> getAllFilms() {
+        return storage.getAllFilms();
+    }
+
+    @Benchmark
+    public List<Film> getAllFilmsPage() {
+        return storage.getAllFilms(ThreadLocalRandom.current().nextLong(size), 100);
+    }
+}
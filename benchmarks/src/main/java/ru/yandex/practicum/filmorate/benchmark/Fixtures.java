@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.yandex.practicum.filmorate.event.DomainEventBus;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.snapshot.SnapshotStore;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLogFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+final class Fixtures {
+
+    private static final int SEED_BATCH_SIZE = 100_000;
+    private static final LocalDate RELEASE_DATE = LocalDate.of(2000, 1, 1);
+    private static final LocalDate BIRTHDAY = LocalDate.of(1990, 1, 1);
+
+    private Fixtures() {
+    }
+
+    static InMemoryFilmStorage filmStorage() {
+        return filmStorage(new SnapshotStore(false, ""));
+    }
+
+    static InMemoryFilmStorage filmStorage(SnapshotStore snapshotStore) {
+        return new InMemoryFilmStorage(new WriteAheadLogFactory(false, "", 0), snapshotStore,
+                new ObjectMapper().findAndRegisterModules(), DomainEventBus.disabled());
+    }
+
+    static InMemoryUserStorage userStorage() {
+        return userStorage(new SnapshotStore(false, ""));
+    }
+
+    static InMemoryUserStorage userStorage(SnapshotStore snapshotStore) {
+        return new InMemoryUserStorage(new WriteAheadLogFactory(false, "", 0), snapshotStore,
+                new ObjectMapper().findAndRegisterModules(), DomainEventBus.disabled());
+    }
+
+    static Film film(long number) {
+        return Film.builder()
+                .name("Film " + number)
+                .description("Benchmark film")
+                .releaseDate(RELEASE_DATE)
+                .duration(100L)
+                .build();
+    }
+
+    static User user(long number) {
+        return User.builder()
+                .login("user" + number)
+                .name("user" + number)
+                .email("user" + number + "@yandex.ru")
+                .birthday(BIRTHDAY)
+                .build();
+    }
+
+    static void seedFilms(InMemoryFilmStorage storage, int count) {
+        for (int seeded = 0; seeded < count; seeded += SEED_BATCH_SIZE) {
+            List<Film> batch = new ArrayList<>(Math.min(SEED_BATCH_SIZE, count - seeded));
+            for (int i = seeded; i < count && batch.size() < SEED_BATCH_SIZE; i++) {
+                batch.add(film(i));
+            }
+            storage.createAll(batch);
+        }
+    }
+
+    static void seedUsers(InMemoryUserStorage storage, int count) {
+        for (int seeded = 0; seeded < count; seeded += SEED_BATCH_SIZE) {
+            List<User> batch = new ArrayList<>(Math.min(SEED_BATCH_SIZE, count - seeded));
+            for (int i = seeded; i < count && batch.size() < SEED_BATCH_SIZE; i++) {
+                batch.add(user(i));
+            }
+            storage.createAll(batch);
+        }
+    }
+}
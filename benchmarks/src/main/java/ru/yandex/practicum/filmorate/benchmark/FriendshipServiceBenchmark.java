@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.audit.AuditLog;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FriendshipService;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public class FriendshipServiceBenchmark {
+
+    private static final long USER = 1;
+    private static final long OTHER = 2;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"100", "10000"})
+    int friends;
+
+    private InMemoryUserStorage userStorage;
+    private FriendshipService friendshipService;
+    private Set<Long> friendsOfUser;
+    private Set<Long> friendsOfOther;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        userStorage = Fixtures.userStorage();
+        Fixtures.seedUsers(userStorage, size);
+        friendshipService = new FriendshipService(userStorage, new SimpleMeterRegistry(), AuditLog.disabled());
+
+        int degree = Math.min(friends, (size - 2) * 2 / 3);
+        List<Friendship> friendships = new ArrayList<>(degree * 2);
+        for (long friendId = 3; friendId < 3 + degree; friendId++) {
+            friendships.add(Friendship.builder().userId(USER).friendId(friendId).build());
+            friendships.add(Friendship.builder().userId(OTHER).friendId(friendId + degree / 2).build());
+        }
+        friendshipService.applyFriendships(friendships);
+
+        friendsOfUser = new HashSet<>(userStorage.findById(USER).getFriends());
+        friendsOfOther = new HashSet<>(userStorage.findById(OTHER).getFriends());
+    }
+
+    @Benchmark
+    public List<User> getAllFriends() {
+        return friendshipService.getAllFriends(USER);
+    }
+
+    @Benchmark
+    public List<User> listMutualFriend() {
+        return friendshipService.listMutualFriend(USER, OTHER);
+    }
+
+    @Benchmark
+    public List<User> mutualFriendsByRetainAll() {
+        Set<Long> mutualIds = new HashSet<>(friendsOfUser);
+        mutualIds.retainAll(friendsOfOther);
+        return userStorage.findAllByIds(mutualIds);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import ru.yandex.practicum.filmorate.audit.AuditLog;
+import ru.yandex.practicum.filmorate.service.LikeService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LikeContentionBenchmark {
+
+    private static final long VIRAL_FILM = 1;
+    private static final int FILMS = 1000;
+    private static final int USERS = 64;
+
+    private LikeService likeService;
+
+    @State(Scope.Thread)
+    public static class Liker {
+        long userId;
+
+        @Setup(Level.Trial)
+        public void pickUser(ThreadParams threadParams) {
+            userId = threadParams.getThreadIndex() + 1;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void seed() {
+        InMemoryFilmStorage filmStorage = Fixtures.filmStorage();
+        InMemoryUserStorage userStorage = Fixtures.userStorage();
+        Fixtures.seedFilms(filmStorage, FILMS);
+        Fixtures.seedUsers(userStorage, USERS);
+        likeService = new LikeService(filmStorage, userStorage, new PopularFilmsCache(), new SimpleMeterRegistry(),
+                AuditLog.disabled());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Set<Long> likeAndUnlike1Thread(Liker liker) {
+        return likeAndUnlike(liker);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Set<Long> likeAndUnlike2Threads(Liker liker) {
+        return likeAndUnlike(liker);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Set<Long> likeAndUnlike4Threads(Liker liker) {
+        return likeAndUnlike(liker);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Set<Long> likeAndUnlike8Threads(Liker liker) {
+        return likeAndUnlike(liker);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Set<Long> likeAndUnlike16Threads(Liker liker) {
+        return likeAndUnlike(liker);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public Set<Long> likeAndUnlike32Threads(Liker liker) {
+        return likeAndUnlike(liker);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Set<Long> likeAndUnlike64Threads(Liker liker) {
+        return likeAndUnlike(liker);
+    }
+
+    private Set<Long> likeAndUnlike(Liker liker) {
+        likeService.addLike(VIRAL_FILM, liker.userId);
+        return likeService.deleteLike(VIRAL_FILM, liker.userId);
+    }
+}
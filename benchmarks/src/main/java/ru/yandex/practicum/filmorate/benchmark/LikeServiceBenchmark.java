@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.audit.AuditLog;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.service.LikeService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public class LikeServiceBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int SEEDING_USERS = 50;
+    private static final int LIKED_FILMS = 100_000;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int size;
+
+    private InMemoryFilmStorage filmStorage;
+    private LikeService likeService;
+    private final AtomicLong likePairs = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void seed() {
+        filmStorage = Fixtures.filmStorage();
+        InMemoryUserStorage userStorage = Fixtures.userStorage();
+        Fixtures.seedFilms(filmStorage, size);
+        Fixtures.seedUsers(userStorage, USERS);
+        likeService = new LikeService(filmStorage, userStorage, new PopularFilmsCache(), new SimpleMeterRegistry(),
+                AuditLog.disabled());
+
+        List<Like> likes = new ArrayList<>();
+        for (long filmId = 1; filmId <= Math.min(size, LIKED_FILMS); filmId++) {
+            for (long userId = 1; userId <= filmId % SEEDING_USERS; userId++) {
+                likes.add(Like.builder().filmId(filmId).userId(userId).build());
+            }
+        }
+        likeService.applyLikes(likes);
+    }
+
+    @Benchmark
+    public Set<Long> addLike() {
+        long pair = likePairs.getAndIncrement();
+        long filmId = 1 + pair % size;
+        long userId = SEEDING_USERS + 1 + (pair / size) % (USERS - SEEDING_USERS);
+        return likeService.addLike(filmId, userId);
+    }
+
+    @Benchmark
+    public List<Film> top10PopularMovies() {
+        return likeService.top10PopularMovies(10);
+    }
+
+    @Benchmark
+    public List<Film> top10ByFullSort() {
+        return filmStorage.getAllFilms().stream()
+                .sorted(Comparator.comparingInt(Film::getLikes).reversed())
+                .limit(10)
+                .toList();
+    }
+}
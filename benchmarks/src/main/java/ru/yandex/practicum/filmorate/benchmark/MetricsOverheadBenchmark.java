@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.yandex.practicum.filmorate.audit.AuditLog;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.LikeService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    private static final int FILMS = 100_000;
+    private static final int USERS = 1000;
+
+    private LikeService plainLikeService;
+    private LikeService timedLikeService;
+
+    @State(Scope.Thread)
+    public static class Liker {
+        long filmId;
+        long userId;
+
+        @Setup(Level.Trial)
+        public void pickUser(ThreadParams threadParams) {
+            filmId = threadParams.getThreadIndex() + 1;
+            userId = threadParams.getThreadIndex() + 1;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void seed() {
+        InMemoryFilmStorage filmStorage = Fixtures.filmStorage();
+        InMemoryUserStorage userStorage = Fixtures.userStorage();
+        Fixtures.seedFilms(filmStorage, FILMS);
+        Fixtures.seedUsers(userStorage, USERS);
+
+        plainLikeService = new LikeService(filmStorage, userStorage, new PopularFilmsCache(),
+                new SimpleMeterRegistry(), AuditLog.disabled());
+
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(
+                new LikeService(filmStorage, userStorage, new PopularFilmsCache(), registry, AuditLog.disabled()));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new TimedAspect(registry));
+        timedLikeService = proxyFactory.getProxy();
+    }
+
+    @Benchmark
+    public List<Film> top10Plain() {
+        return plainLikeService.top10PopularMovies(10);
+    }
+
+    @Benchmark
+    public List<Film> top10Timed() {
+        return timedLikeService.top10PopularMovies(10);
+    }
+
+    @Benchmark
+    public Set<Long> likeAndUnlikePlain(Liker liker) {
+        plainLikeService.addLike(liker.filmId, liker.userId);
+        return plainLikeService.deleteLike(liker.filmId, liker.userId);
+    }
+
+    @Benchmark
+    public Set<Long> likeAndUnlikeTimed(Liker liker) {
+        timedLikeService.addLike(liker.filmId, liker.userId);
+        return timedLikeService.deleteLike(liker.filmId, liker.userId);
+    }
+}
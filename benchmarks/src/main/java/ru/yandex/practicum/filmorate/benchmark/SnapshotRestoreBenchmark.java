@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.snapshot.SnapshotStore;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public class SnapshotRestoreBenchmark {
+
+    private static final int BATCH_SIZE = 100_000;
+    private static final int LIKES_PER_FILM = 4;
+    private static final int FRIENDS_PER_USER = 4;
+
+    @Param({"1000000", "10000000"})
+    int size;
+
+    @Param({"films", "users"})
+    String store;
+
+    private Path directory;
+    private SnapshotStore snapshotStore;
+
+    @Setup(Level.Trial)
+    public void writeSnapshot() throws IOException {
+        directory = Files.createTempDirectory("filmorate-snapshot-bench");
+        snapshotStore = new SnapshotStore(true, directory.toString());
+        if ("films".equals(store)) {
+            InMemoryFilmStorage films = Fixtures.filmStorage(snapshotStore);
+            Fixtures.seedFilms(films, size);
+            List<Like> likes = new ArrayList<>(BATCH_SIZE);
+            for (long filmId = 1; filmId <= size; filmId++) {
+                for (long like = 1; like <= LIKES_PER_FILM; like++) {
+                    likes.add(Like.builder().filmId(filmId).userId((filmId * 31 + like) % size + 1).build());
+                }
+                if (likes.size() >= BATCH_SIZE) {
+                    films.applyLikes(likes);
+                    likes.clear();
+                }
+            }
+            films.applyLikes(likes);
+            films.snapshot();
+        } else {
+            InMemoryUserStorage users = Fixtures.userStorage(snapshotStore);
+            Fixtures.seedUsers(users, size);
+            List<Friendship> friendships = new ArrayList<>(BATCH_SIZE);
+            for (long userId = 1; userId <= size; userId++) {
+                for (long friend = 1; friend <= FRIENDS_PER_USER / 2; friend++) {
+                    friendships.add(Friendship.builder().userId(userId).friendId((userId + friend * 7919) % size + 1)
+                            .build());
+                }
+                if (friendships.size() >= BATCH_SIZE) {
+                    users.applyFriendships(friendships);
+                    friendships.clear();
+                }
+            }
+            users.applyFriendships(friendships);
+            users.snapshot();
+        }
+        System.gc();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public long recover() {
+        if ("films".equals(store)) {
+            InMemoryFilmStorage films = Fixtures.filmStorage(snapshotStore);
+            films.recover();
+            return films.count();
+        }
+        InMemoryUserStorage users = Fixtures.userStorage(snapshotStore);
+        users.recover();
+        return users.count();
+    }
+}
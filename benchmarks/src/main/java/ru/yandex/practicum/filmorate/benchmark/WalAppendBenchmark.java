@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WalAppendBenchmark {
+
+    private static final String PAYLOAD = "{\"id\":1,\"name\":\"Film 1\",\"description\":\"Benchmark film\","
+            + "\"releaseDate\":\"2000-01-01\",\"duration\":100,\"likes\":0}";
+
+    @Param({"0", "1", "5"})
+    long syncIntervalMs;
+
+    private Path directory;
+    private WriteAheadLog wal;
+
+    @State(Scope.Thread)
+    public static class Writer {
+        long id;
+
+        @Setup(Level.Trial)
+        public void pickRange(ThreadParams threadParams) {
+            id = (long) threadParams.getThreadIndex() << 32;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        directory = Files.createTempDirectory("filmorate-wal-bench");
+        wal = new WriteAheadLog(directory, "films", syncIntervalMs);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        wal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void append1Thread(Writer writer) {
+        append(writer);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void append4Threads(Writer writer) {
+        append(writer);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void append16Threads(Writer writer) {
+        append(writer);
+    }
+
+    private void append(Writer writer) {
+        wal.append(WalRecord.UPDATE, ++writer.id, PAYLOAD);
+    }
+}
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.audit;
+
+public record AuditEvent(long timestamp, String type, long userId, long targetId) {
+
+    public static final String LIKE = "LIKE";
+    public static final String UNLIKE = "UNLIKE";
+    public static final String FRIEND = "FRIEND";
+    public static final String UNFRIEND = "UNFRIEND";
+}
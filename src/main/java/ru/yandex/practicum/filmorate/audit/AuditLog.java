@@ -0,0 +1,289 @@
+package ru.yandex.practicum.filmorate.audit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+@Component
+public class AuditLog implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("audit\\.(\\d+)\\.log\\.gz");
+    private static final char SEPARATOR = '\t';
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    public enum Overflow {
+        DROP,
+        BLOCK
+    }
+
+    private final boolean enabled;
+    private final Path directory;
+    private final AuditRingBuffer buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final Overflow overflow;
+    private final long blockTimeoutNanos;
+    private final Thread writer;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private volatile long written;
+    private volatile long failed;
+    private volatile boolean closed;
+
+    private long segment;
+    private OutputStream out;
+    private long fileBytes;
+
+    public AuditLog(@Value("${filmorate.audit.enabled:false}") boolean enabled,
+                    @Value("${filmorate.audit.directory:data/audit}") String directory,
+                    @Value("${filmorate.audit.capacity:65536}") int capacity,
+                    @Value("${filmorate.audit.batch-size:4096}") int batchSize,
+                    @Value("${filmorate.audit.flush-interval-ms:50}") long flushIntervalMs,
+                    @Value("${filmorate.audit.max-file-bytes:67108864}") long maxFileBytes,
+                    @Value("${filmorate.audit.max-files:100}") int maxFiles,
+                    @Value("${filmorate.audit.overflow:DROP}") Overflow overflow,
+                    @Value("${filmorate.audit.block-timeout-ms:5}") long blockTimeoutMs) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.buffer = new AuditRingBuffer(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.overflow = overflow;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+
+        if (!enabled) {
+            this.writer = null;
+            return;
+        }
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать каталог аудита " + directory, e);
+        }
+        List<Long> segments = listSegments();
+        this.segment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        this.writer = new Thread(this::writeLoop, "audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        log.info("Журнал аудита {} открыт, ёмкость буфера {}, при переполнении {}", directory,
+                buffer.capacity(), overflow);
+    }
+
+    public static AuditLog disabled() {
+        return new AuditLog(false, "data/audit", 2, 1, 0, 0, 0, Overflow.DROP, 0);
+    }
+
+    public void record(String type, long userId, long targetId) {
+        if (!enabled) {
+            return;
+        }
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+        AuditEvent event = new AuditEvent(System.currentTimeMillis(), type, userId, targetId);
+        if (buffer.offer(event)) {
+            accepted.increment();
+            return;
+        }
+        if (overflow == Overflow.BLOCK) {
+            blocked.increment();
+            LockSupport.unpark(writer);
+            long deadline = System.nanoTime() + blockTimeoutNanos;
+            while (System.nanoTime() - deadline < 0 && !closed) {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                if (buffer.offer(event)) {
+                    accepted.increment();
+                    return;
+                }
+            }
+        }
+        dropped.increment();
+    }
+
+    public long accepted() {
+        return accepted.sum();
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public long written() {
+        return written;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled || closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("filmorate.audit.events", accepted, LongAdder::sum)
+                .description("События аудита по результату постановки в буфер и записи")
+                .tag("outcome", "accepted")
+                .register(registry);
+        FunctionCounter.builder("filmorate.audit.events", dropped, LongAdder::sum)
+                .tag("outcome", "dropped")
+                .register(registry);
+        FunctionCounter.builder("filmorate.audit.events", this, AuditLog::written)
+                .tag("outcome", "written")
+                .register(registry);
+        FunctionCounter.builder("filmorate.audit.events", this, auditLog -> auditLog.failed)
+                .tag("outcome", "failed")
+                .register(registry);
+        FunctionCounter.builder("filmorate.audit.blocked", blocked, LongAdder::sum)
+                .description("Сколько раз запрос ждал места в буфере аудита")
+                .register(registry);
+        Gauge.builder("filmorate.audit.queue.size", buffer, AuditRingBuffer::size)
+                .register(registry);
+        Gauge.builder("filmorate.audit.queue.capacity", buffer, AuditRingBuffer::capacity)
+                .register(registry);
+    }
+
+    private void writeLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            boolean stopping = closed;
+            int drained = buffer.drainTo(batch, batchSize);
+            if (drained > 0) {
+                write(batch);
+                batch.clear();
+            }
+            if (drained == batchSize) {
+                continue;
+            }
+            if (stopping) {
+                break;
+            }
+            LockSupport.parkNanos(flushIntervalNanos);
+        }
+        closeSegment();
+    }
+
+    private void write(List<AuditEvent> batch) {
+        StringBuilder lines = new StringBuilder(batch.size() * 48);
+        for (AuditEvent event : batch) {
+            lines.append(event.timestamp()).append(SEPARATOR)
+                    .append(event.type()).append(SEPARATOR)
+                    .append(event.userId()).append(SEPARATOR)
+                    .append(event.targetId()).append('\n');
+        }
+        byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            if (out == null) {
+                openSegment();
+            }
+            out.write(bytes);
+            out.flush();
+            fileBytes += bytes.length;
+            written += batch.size();
+        } catch (IOException e) {
+            log.error("Не удалось записать в журнал аудита {} событий: {}", directory, batch.size(), e);
+            failed += batch.size();
+            closeSegment();
+            return;
+        }
+        if (fileBytes >= maxFileBytes) {
+            closeSegment();
+            deleteOldSegments();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        segment++;
+        Path file = segmentFile(segment);
+        out = new GZIPOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE_NEW), 1 << 16, true);
+        fileBytes = 0;
+    }
+
+    private void closeSegment() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.error("Не удалось закрыть журнал аудита {}", segmentFile(segment), e);
+        }
+        out = null;
+    }
+
+    private void deleteOldSegments() {
+        List<Long> segments;
+        try {
+            segments = listSegments();
+        } catch (UncheckedIOException e) {
+            log.error("Не удалось очистить старые журналы аудита {}", directory, e);
+            return;
+        }
+        for (int i = 0; i < segments.size() - maxFiles; i++) {
+            try {
+                Files.deleteIfExists(segmentFile(segments.get(i)));
+            } catch (IOException e) {
+                log.error("Не удалось удалить журнал аудита {}", segmentFile(segments.get(i)), e);
+            }
+        }
+    }
+
+    private List<Long> listSegments() {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                Matcher matcher = SEGMENT_PATTERN.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать каталог аудита " + directory, e);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private Path segmentFile(long segmentNumber) {
+        return directory.resolve("audit." + segmentNumber + ".log.gz");
+    }
+}
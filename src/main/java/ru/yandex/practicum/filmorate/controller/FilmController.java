@@ -1,11 +1,19 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.service.FilmSearchService;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.LikeService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Set;
 
@@ -15,10 +23,12 @@ public class FilmController {
 
     private final FilmService filmService;
     private final LikeService likeService;
+    private final FilmSearchService filmSearchService;
 
-    public FilmController(FilmService filmService, LikeService likeService) {
+    public FilmController(FilmService filmService, LikeService likeService, FilmSearchService filmSearchService) {
         this.filmService = filmService;
         this.likeService = likeService;
+        this.filmSearchService = filmSearchService;
     }
 
     @GetMapping("/popular")
@@ -26,11 +36,28 @@ public class FilmController {
         return likeService.top10PopularMovies(count);
     }
 
+    @GetMapping("/search")
+    public List<Film> search(@RequestParam String q, @RequestParam(defaultValue = "20") Integer limit) {
+        return filmSearchService.search(q, limit);
+    }
+
     @GetMapping
     public List<Film> allListFilm() {
         return filmService.getAllFilms();
     }
 
+    @GetMapping(params = "limit")
+    public List<Film> pageListFilm(@RequestParam Integer limit, @RequestParam(required = false) Long after) {
+        return filmService.getAllFilms(after, limit);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(filmService::exportFilms);
+    }
+
     @GetMapping("/{filmId}")
     public Film findById(@PathVariable Long filmId) {
         return filmService.findById(filmId);
@@ -41,6 +68,21 @@ public class FilmController {
         return filmService.createFilm(film);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<ImportResult> importFilms(@RequestBody List<Film> films) {
+        return filmService.importFilms(films);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public List<ImportResult> importFilmsStream(InputStream body) throws IOException {
+        return filmService.importFilms(body);
+    }
+
+    @PostMapping({"/likes/import", "/likes/batch"})
+    public List<ImportResult> applyLikes(@RequestBody List<Like> likes) {
+        return likeService.applyLikes(likes);
+    }
+
     @PutMapping
     public Film update(@Valid @RequestBody Film newFilm) {
         return filmService.updateFilm(newFilm);
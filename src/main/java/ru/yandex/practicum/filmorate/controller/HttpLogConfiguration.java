@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.core.Conditions;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+@Configuration
+public class HttpLogConfiguration {
+
+    @Bean
+    public Predicate<HttpRequest> requestCondition(@Value("${filmorate.http-log.sample-rate:0.01}") double sampleRate) {
+        Predicate<HttpRequest> notActuator = Conditions.exclude(Conditions.requestTo("/actuator/**"));
+        if (sampleRate >= 1.0) {
+            return notActuator;
+        }
+        return notActuator.and(request -> ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+}
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+
+import java.io.IOException;
+import java.util.Collections;
+
+@Component
+public class PopularFilmsCacheFilter extends OncePerRequestFilter {
+
+    private static final String POPULAR_FILMS_PATH = "/films/popular";
+    private static final int DEFAULT_COUNT = 10;
+
+    private final PopularFilmsCache popularFilmsCache;
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public PopularFilmsCacheFilter(PopularFilmsCache popularFilmsCache) {
+        this.popularFilmsCache = popularFilmsCache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod())
+                || !POPULAR_FILMS_PATH.equals(urlPathHelper.getPathWithinApplication(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Integer count = parseCount(request.getParameter("count"));
+        if (count == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long version = popularFilmsCache.currentVersion();
+        String eTag = popularFilmsCache.eTag(count, version);
+
+        if (isNotModified(request, eTag)) {
+            response.setHeader(HttpHeaders.ETAG, eTag);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        PopularFilmsCache.CachedResponse cached = popularFilmsCache.get(count, version);
+        if (cached != null) {
+            response.setHeader(HttpHeaders.ETAG, eTag);
+            response.setContentType(cached.contentType());
+            response.setContentLength(cached.body().length);
+            response.getOutputStream().write(cached.body());
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+            wrapper.setHeader(HttpHeaders.ETAG, eTag);
+            popularFilmsCache.put(count, version, wrapper.getContentType(), wrapper.getContentAsByteArray());
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private Integer parseCount(String count) {
+        if (count == null) {
+            return DEFAULT_COUNT;
+        }
+        try {
+            return Integer.valueOf(count.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String eTag) {
+        for (String header : Collections.list(request.getHeaders(HttpHeaders.IF_NONE_MATCH))) {
+            for (String candidate : header.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals(eTag) || tag.equals("*")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.ReactiveFilmService;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/reactive/films")
+public class ReactiveFilmController {
+
+    private final ReactiveFilmService filmService;
+
+    public ReactiveFilmController(ReactiveFilmService filmService) {
+        this.filmService = filmService;
+    }
+
+    @GetMapping("/popular")
+    public Flux<Film> topFilms(@RequestParam(defaultValue = "10") Integer count) {
+        return filmService.getPopularFilms(count);
+    }
+
+    @GetMapping
+    public Flux<Film> allListFilm() {
+        return filmService.getAllFilms();
+    }
+
+    @GetMapping("/{filmId}")
+    public Mono<Film> findById(@PathVariable Long filmId) {
+        return filmService.findById(filmId);
+    }
+
+    @PostMapping
+    public Mono<Film> create(@Valid @RequestBody Film film) {
+        return filmService.createFilm(film);
+    }
+
+    @PutMapping
+    public Mono<Film> update(@Valid @RequestBody Film newFilm) {
+        return filmService.updateFilm(newFilm);
+    }
+
+    @PutMapping("/{filmId}/like/{userId}")
+    public Mono<Set<Long>> addLikeFilms(@PathVariable Long filmId, @PathVariable Long userId) {
+        return filmService.addLike(filmId, userId);
+    }
+
+    @DeleteMapping("/{filmId}/like/{userId}")
+    public Mono<Set<Long>> deleteLike(@PathVariable Long filmId, @PathVariable Long userId) {
+        return filmService.deleteLike(filmId, userId);
+    }
+
+    @DeleteMapping("/{filmId}")
+    public Mono<Void> deleteFilmById(@PathVariable Long filmId) {
+        return filmService.deleteFilmById(filmId);
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ReactiveUserService;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/reactive/users")
+@Validated
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    public ReactiveUserController(ReactiveUserService userService) {
+        this.userService = userService;
+    }
+
+    @GetMapping
+    public Flux<User> allListUsers() {
+        return userService.getAllUsers();
+    }
+
+    @GetMapping("/{userId}/friends/common/{mutualFriendId}")
+    public Flux<User> getListMutualFriend(@PathVariable Long userId, @PathVariable Long mutualFriendId) {
+        return userService.listMutualFriend(userId, mutualFriendId);
+    }
+
+    @GetMapping("/{userId}/friends")
+    public Flux<User> getFriends(@PathVariable Long userId) {
+        return userService.getAllFriends(userId);
+    }
+
+    @GetMapping("/{userId}")
+    public Mono<User> findById(@PathVariable Long userId) {
+        return userService.findById(userId);
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<User> create(@Valid @RequestBody User user) {
+        return userService.createUser(user);
+    }
+
+    @PutMapping
+    public Mono<User> update(@Valid @RequestBody User newUser) {
+        return userService.updateUser(newUser);
+    }
+
+    @PutMapping("/{userId}/friends/{friendId}")
+    public Mono<Set<Long>> addFriend(@PathVariable Long userId, @PathVariable Long friendId) {
+        return userService.addFriends(userId, friendId);
+    }
+
+    @DeleteMapping("/{userId}/friends/{friendId}")
+    public Mono<Set<Long>> deleteFriend(@PathVariable Long userId, @PathVariable Long friendId) {
+        return userService.deleteFromFriends(userId, friendId);
+    }
+
+    @DeleteMapping("/{userId}")
+    public Mono<Void> deleteUserById(@PathVariable Long userId) {
+        return userService.deleteUserById(userId);
+    }
+}
@@ -4,12 +4,21 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FriendshipService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Set;
 
@@ -22,11 +31,14 @@ public class UserController {
 
     private final UserService userService;
     private final FriendshipService friendshipService;
+    private final RecommendationService recommendationService;
 
 
-    public UserController(UserService userService, FriendshipService friendshipService) {
+    public UserController(UserService userService, FriendshipService friendshipService,
+                          RecommendationService recommendationService) {
         this.userService = userService;
         this.friendshipService = friendshipService;
+        this.recommendationService = recommendationService;
     }
 
     @GetMapping
@@ -34,6 +46,11 @@ public class UserController {
         return userService.getAllUsers();
     }
 
+    @GetMapping(params = "limit")
+    public List<User> pageListUsers(@RequestParam Integer limit, @RequestParam(required = false) Long after) {
+        return userService.getAllUsers(after, limit);
+    }
+
     @GetMapping("/{userId}/friends/common/{mutualFriendId}")
     public List<User> getListMutualFriend(@PathVariable Long userId, @PathVariable Long mutualFriendId) {
         return friendshipService.listMutualFriend(userId, mutualFriendId);
@@ -44,6 +61,18 @@ public class UserController {
         return friendshipService.getAllFriends(userId);
     }
 
+    @GetMapping("/{userId}/recommendations")
+    public List<Film> getRecommendations(@PathVariable Long userId) {
+        return recommendationService.getRecommendations(userId);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(userService::exportUsers);
+    }
+
     @GetMapping("/{userId}")
     public User findById(@PathVariable Long userId) {
         return userService.findById(userId);
@@ -55,9 +84,24 @@ public class UserController {
         return userService.createUser(user);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<ImportResult> importUsers(@RequestBody List<User> users) {
+        return userService.importUsers(users);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public List<ImportResult> importUsersStream(InputStream body) throws IOException {
+        return userService.importUsers(body);
+    }
+
+    @PostMapping({"/friends/import", "/friends/batch"})
+    public List<ImportResult> applyFriendships(@RequestBody List<Friendship> friendships) {
+        return friendshipService.applyFriendships(friendships);
+    }
+
     @PutMapping
     public User update(@Valid @RequestBody User newUser) {
-        log.info("Данные для обновления пользователя с ID : {}", newUser);
+        log.debug("Данные для обновления пользователя с ID : {}", newUser.getId());
         return userService.updateUser(newUser);
     }
 
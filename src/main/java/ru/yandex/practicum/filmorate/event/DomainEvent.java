@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.event;
+
+public sealed interface DomainEvent {
+
+    record FilmCreated(long filmId) implements DomainEvent {
+    }
+
+    record FilmUpdated(long filmId) implements DomainEvent {
+    }
+
+    record FilmDeleted(long filmId) implements DomainEvent {
+    }
+
+    record FilmsCleared() implements DomainEvent {
+    }
+
+    record LikeAdded(long filmId, long userId) implements DomainEvent {
+    }
+
+    record LikeRemoved(long filmId, long userId) implements DomainEvent {
+    }
+
+    record UserCreated(long userId) implements DomainEvent {
+    }
+
+    record UserUpdated(long userId) implements DomainEvent {
+    }
+
+    record UserDeleted(long userId) implements DomainEvent {
+    }
+
+    record UsersCleared() implements DomainEvent {
+    }
+
+    record FriendAdded(long userId, long friendId) implements DomainEvent {
+    }
+
+    record FriendRemoved(long userId, long friendId) implements DomainEvent {
+    }
+}
@@ -0,0 +1,321 @@
+package ru.yandex.practicum.filmorate.event;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class DomainEventBus implements SmartLifecycle, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(DomainEventBus.class);
+
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final boolean enabled;
+    private final BlockingQueue<Envelope> queue;
+    private final int batchSize;
+    private final long publishWarnNanos;
+    private final List<DomainEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final ArrayDeque<Envelope> ownEvents = new ArrayDeque<>();
+    private final ThreadLocal<List<Envelope>> deferred = new ThreadLocal<>();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long dispatched;
+    private volatile long failed;
+    private volatile Timer lagTimer;
+
+    private volatile boolean running;
+    private volatile boolean closed;
+    private volatile Thread dispatcher;
+
+    public DomainEventBus(@Value("${filmorate.events.enabled:true}") boolean enabled,
+                          @Value("${filmorate.events.capacity:65536}") int capacity,
+                          @Value("${filmorate.events.batch-size:1024}") int batchSize,
+                          @Value("${filmorate.events.publish-warn-ms:1000}") long publishWarnMs) {
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.publishWarnNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, publishWarnMs));
+    }
+
+    public static DomainEventBus disabled() {
+        return new DomainEventBus(false, 1, 1, 0);
+    }
+
+    public void subscribe(DomainEventListener listener) {
+        if (running) {
+            throw new IllegalStateException("Подписка на события возможна только до запуска шины");
+        }
+        listeners.add(listener);
+    }
+
+    public void publish(DomainEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishAfterCommit(event);
+            return;
+        }
+        enqueue(new Envelope(event, System.nanoTime()));
+    }
+
+    public void publishAfter(Runnable action) {
+        if (deferred.get() != null) {
+            action.run();
+            return;
+        }
+        List<Envelope> events = new ArrayList<>();
+        deferred.set(events);
+        try {
+            action.run();
+        } finally {
+            deferred.remove();
+            for (Envelope envelope : events) {
+                enqueue(envelope);
+            }
+        }
+    }
+
+    public long pending() {
+        return queue.size();
+    }
+
+    public long dispatched() {
+        return dispatched;
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        closed = false;
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "domain-events");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("Шина событий запущена, подписчиков {}, ёмкость очереди {}", listeners.size(),
+                queue.remainingCapacity() + queue.size());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closed = true;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        lagTimer = Timer.builder("filmorate.events.lag")
+                .description("Задержка между публикацией события и его обработкой подписчиками")
+                .publishPercentileHistogram()
+                .register(registry);
+        FunctionCounter.builder("filmorate.events", published, LongAdder::sum)
+                .tag("outcome", "published")
+                .register(registry);
+        FunctionCounter.builder("filmorate.events", this, DomainEventBus::dispatched)
+                .tag("outcome", "dispatched")
+                .register(registry);
+        FunctionCounter.builder("filmorate.events", dropped, LongAdder::sum)
+                .tag("outcome", "dropped")
+                .register(registry);
+        FunctionCounter.builder("filmorate.events.listener.failures", this, bus -> bus.failed)
+                .register(registry);
+        FunctionCounter.builder("filmorate.events.blocked", blocked, LongAdder::sum)
+                .description("Сколько раз запись ждала места в очереди событий")
+                .register(registry);
+        Gauge.builder("filmorate.events.pending", this, DomainEventBus::pending)
+                .register(registry);
+        Gauge.builder("filmorate.events.oldest.age", this, DomainEventBus::oldestPendingAgeMs)
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    private void publishAfterCommit(DomainEvent event) {
+        @SuppressWarnings("unchecked")
+        List<DomainEvent> transactionEvents = (List<DomainEvent>) TransactionSynchronizationManager.getResource(this);
+        if (transactionEvents == null) {
+            List<DomainEvent> events = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    long publishedAt = System.nanoTime();
+                    for (DomainEvent committed : events) {
+                        enqueue(new Envelope(committed, publishedAt));
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DomainEventBus.this);
+                }
+            });
+            transactionEvents = events;
+        }
+        transactionEvents.add(event);
+    }
+
+    private void enqueue(Envelope envelope) {
+        List<Envelope> deferredEvents = deferred.get();
+        if (deferredEvents != null) {
+            deferredEvents.add(envelope);
+            return;
+        }
+        if (closed) {
+            drop(envelope);
+            return;
+        }
+        if (Thread.currentThread() == dispatcher) {
+            ownEvents.add(envelope);
+            published.increment();
+            return;
+        }
+        if (queue.offer(envelope)) {
+            published.increment();
+            return;
+        }
+        blocked.increment();
+        long waitStarted = System.nanoTime();
+        boolean warned = false;
+        boolean interrupted = false;
+        try {
+            while (!closed) {
+                try {
+                    if (queue.offer(envelope, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                        published.increment();
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+                if (!warned && System.nanoTime() - waitStarted >= publishWarnNanos) {
+                    warned = true;
+                    log.warn("Событие {} ждёт места в очереди событий дольше {} мс", envelope.event(),
+                            TimeUnit.NANOSECONDS.toMillis(publishWarnNanos));
+                }
+            }
+            drop(envelope);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void drop(Envelope envelope) {
+        dropped.increment();
+        log.warn("Событие {} отброшено: шина событий остановлена", envelope.event());
+    }
+
+    private void dispatchLoop() {
+        for (DomainEventListener listener : listeners) {
+            try {
+                listener.onStart();
+            } catch (RuntimeException e) {
+                log.error("Подписчик {} не смог инициализироваться", listener.getClass().getSimpleName(), e);
+            }
+        }
+
+        List<Envelope> batch = new ArrayList<>(batchSize);
+        List<DomainEvent> events = new ArrayList<>(batchSize);
+        while (true) {
+            if (ownEvents.isEmpty()) {
+                Envelope first;
+                try {
+                    first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (first == null) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+            } else {
+                while (batch.size() < batchSize && !ownEvents.isEmpty()) {
+                    batch.add(ownEvents.poll());
+                }
+            }
+            for (Envelope envelope : batch) {
+                events.add(envelope.event());
+            }
+
+            for (DomainEventListener listener : listeners) {
+                try {
+                    listener.onEvents(events);
+                } catch (RuntimeException e) {
+                    failed++;
+                    log.error("Подписчик {} не обработал {} событий", listener.getClass().getSimpleName(),
+                            events.size(), e);
+                }
+            }
+
+            Timer timer = lagTimer;
+            if (timer != null) {
+                long now = System.nanoTime();
+                for (Envelope envelope : batch) {
+                    timer.record(now - envelope.publishedAt(), TimeUnit.NANOSECONDS);
+                }
+            }
+            dispatched += batch.size();
+            batch.clear();
+            events.clear();
+        }
+    }
+
+    private double oldestPendingAgeMs() {
+        Envelope oldest = queue.peek();
+        return oldest == null ? 0 : (System.nanoTime() - oldest.publishedAt()) / 1_000_000.0;
+    }
+
+    private record Envelope(DomainEvent event, long publishedAt) {
+    }
+}
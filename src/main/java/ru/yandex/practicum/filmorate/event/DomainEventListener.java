@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.event;
+
+import java.util.List;
+
+public interface DomainEventListener {
+
+    default void onStart() {
+    }
+
+    void onEvents(List<DomainEvent> events);
+}
@@ -6,8 +6,6 @@ import lombok.Data;
 import lombok.experimental.FieldDefaults;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Builder
@@ -21,7 +19,7 @@ public class Film {
     Long duration;
 
     @Builder.Default
-    Set<Long> userLikes = new HashSet<>();
+    LongHashSet userLikes = new LongHashSet();
 
     int likes;
 }
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Builder
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportResult {
+    int index;
+    Long id;
+    String error;
+}
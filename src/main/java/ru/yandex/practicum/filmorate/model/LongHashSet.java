@@ -0,0 +1,218 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class LongHashSet extends AbstractSet<Long> {
+
+    private static final int MIN_CAPACITY = 4;
+    private static final long EMPTY = 0L;
+
+    private long[] keys = new long[MIN_CAPACITY];
+    private boolean containsEmptyKey;
+    private int size;
+    private boolean shared;
+
+    public LongHashSet() {
+    }
+
+    public LongHashSet(Collection<Long> values) {
+        for (Long value : values) {
+            addLong(value);
+        }
+    }
+
+    public synchronized boolean addLong(long value) {
+        if (value == EMPTY) {
+            if (containsEmptyKey) {
+                return false;
+            }
+            containsEmptyKey = true;
+            size++;
+            return true;
+        }
+        if (indexOf(keys, value) >= 0) {
+            return false;
+        }
+        if ((size + 1) * 4L > keys.length * 3L) {
+            resize(keys.length * 2);
+        } else {
+            unshare();
+        }
+        insert(keys, value);
+        size++;
+        return true;
+    }
+
+    public synchronized boolean containsLong(long value) {
+        if (value == EMPTY) {
+            return containsEmptyKey;
+        }
+        return indexOf(keys, value) >= 0;
+    }
+
+    public synchronized boolean removeLong(long value) {
+        if (value == EMPTY) {
+            if (!containsEmptyKey) {
+                return false;
+            }
+            containsEmptyKey = false;
+            size--;
+            return true;
+        }
+        int index = indexOf(keys, value);
+        if (index < 0) {
+            return false;
+        }
+        unshare();
+        shiftBack(index);
+        size--;
+        return true;
+    }
+
+    public synchronized long[] toLongArray() {
+        long[] values = new long[size];
+        int position = 0;
+        if (containsEmptyKey) {
+            values[position++] = EMPTY;
+        }
+        for (long key : keys) {
+            if (key != EMPTY) {
+                values[position++] = key;
+            }
+        }
+        return values;
+    }
+
+    public synchronized LongHashSet snapshot() {
+        LongHashSet snapshot = new LongHashSet();
+        snapshot.keys = keys;
+        snapshot.containsEmptyKey = containsEmptyKey;
+        snapshot.size = size;
+        snapshot.shared = true;
+        shared = true;
+        return snapshot;
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return addLong(value);
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Long && containsLong((Long) value);
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        return value instanceof Long && removeLong((Long) value);
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void clear() {
+        keys = new long[MIN_CAPACITY];
+        containsEmptyKey = false;
+        size = 0;
+        shared = false;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        long[] snapshot = toLongArray();
+        return new Iterator<>() {
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                return position < snapshot.length;
+            }
+
+            @Override
+            public Long next() {
+                if (position >= snapshot.length) {
+                    throw new NoSuchElementException();
+                }
+                return snapshot[position++];
+            }
+
+            @Override
+            public void remove() {
+                if (position == 0) {
+                    throw new IllegalStateException();
+                }
+                removeLong(snapshot[position - 1]);
+            }
+        };
+    }
+
+    private void resize(int capacity) {
+        long[] resized = new long[capacity];
+        for (long key : keys) {
+            if (key != EMPTY) {
+                insert(resized, key);
+            }
+        }
+        keys = resized;
+        shared = false;
+    }
+
+    private void unshare() {
+        if (shared) {
+            keys = keys.clone();
+            shared = false;
+        }
+    }
+
+    private void shiftBack(int freed) {
+        int mask = keys.length - 1;
+        keys[freed] = EMPTY;
+        int index = freed;
+        while (true) {
+            index = (index + 1) & mask;
+            long key = keys[index];
+            if (key == EMPTY) {
+                return;
+            }
+            int home = slot(key, mask);
+            if (((index - home) & mask) >= ((index - freed) & mask)) {
+                keys[freed] = key;
+                keys[index] = EMPTY;
+                freed = index;
+            }
+        }
+    }
+
+    private static int indexOf(long[] table, long value) {
+        int mask = table.length - 1;
+        int index = slot(value, mask);
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static void insert(long[] table, long value) {
+        int mask = table.length - 1;
+        int index = slot(value, mask);
+        while (table[index] != EMPTY) {
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+    }
+
+    private static int slot(long value, int mask) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
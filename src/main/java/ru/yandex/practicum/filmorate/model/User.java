@@ -6,8 +6,6 @@ import lombok.Data;
 import lombok.experimental.FieldDefaults;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Builder
@@ -20,5 +18,5 @@ public class User {
     LocalDate birthday;
 
     @Builder.Default
-    Set<Long> friends = new HashSet<>();
+    LongHashSet friends = new LongHashSet();
 }
\ No newline at end of file
@@ -0,0 +1,351 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.DomainEvent;
+import ru.yandex.practicum.filmorate.event.DomainEventBus;
+import ru.yandex.practicum.filmorate.event.DomainEventListener;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Timed(value = "filmorate.service", histogram = true)
+public class FilmSearchService implements DomainEventListener, MeterBinder {
+
+    private static Logger log = LoggerFactory.getLogger(FilmSearchService.class);
+
+    private static final String[] NO_TERMS = new String[0];
+    private static final String TERM_SEPARATOR = " ";
+    private static final long[] NO_FILMS = new long[0];
+    private static final long ORDER_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final Comparator<Match> BEST_FIRST = Comparator.comparingInt(Match::score).reversed()
+            .thenComparing(Comparator.comparingInt(Match::likes).reversed())
+            .thenComparingLong(Match::filmId);
+
+    private final FilmStorage filmStorage;
+    private final int maxResults;
+    private final int maxCandidates;
+    private final int minPrefixLength;
+
+    private final ConcurrentSkipListMap<String, LongHashSet> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private volatile long[] filmsByLikes = NO_FILMS;
+    private volatile boolean filmsByLikesStale;
+    private volatile long filmsByLikesBuiltAt = System.nanoTime() - ORDER_REFRESH_NANOS;
+
+    public FilmSearchService(FilmStorage filmStorage, DomainEventBus eventBus,
+                             @Value("${filmorate.search.max-results:100}") int maxResults,
+                             @Value("${filmorate.search.max-candidates:10000}") int maxCandidates,
+                             @Value("${filmorate.search.min-prefix-length:3}") int minPrefixLength) {
+        this.filmStorage = filmStorage;
+        this.maxResults = maxResults;
+        this.maxCandidates = Math.max(1, maxCandidates);
+        this.minPrefixLength = minPrefixLength;
+        eventBus.subscribe(this);
+    }
+
+    public List<Film> search(String query, int limit) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0) {
+            throw new ValidationException("Поисковый запрос должен содержать хотя бы одно слово");
+        }
+        if (limit <= 0) {
+            throw new ValidationException("Количество результатов должно быть положительным");
+        }
+        int resultLimit = Math.min(limit, maxResults);
+
+        String selective = null;
+        SortedMap<String, LongHashSet> candidates = null;
+        long candidatesSize = Long.MAX_VALUE;
+        for (String token : tokens) {
+            SortedMap<String, LongHashSet> matches = token.length() < minPrefixLength
+                    ? postings.subMap(token, true, token, true)
+                    : postings.subMap(token, token + Character.MAX_VALUE);
+            long size = 0;
+            for (LongHashSet ids : matches.values()) {
+                size += ids.size();
+                if (size >= candidatesSize || size >= maxCandidates) {
+                    break;
+                }
+            }
+            if (size == 0) {
+                return new ArrayList<>();
+            }
+            if (size < candidatesSize) {
+                selective = token;
+                candidates = matches;
+                candidatesSize = size;
+            }
+        }
+
+        String[] needles = new String[tokens.length];
+        boolean[] exact = new boolean[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            needles[i] = TERM_SEPARATOR + tokens[i];
+            exact[i] = tokens[i].length() < minPrefixLength;
+        }
+        String selectiveNeedle = TERM_SEPARATOR + selective;
+
+        PriorityQueue<Match> top = new PriorityQueue<>(resultLimit + 1, BEST_FIRST.reversed());
+        boolean truncated = candidatesSize >= maxCandidates;
+        int scanned = 0;
+        if (truncated) {
+            boolean selectiveExact = selective.length() < minPrefixLength;
+            for (long filmId : filmsByLikes()) {
+                Entry entry = entries.get(filmId);
+                if (entry == null || position(entry.terms(), selectiveNeedle, selectiveExact) < 0) {
+                    continue;
+                }
+                offer(top, resultLimit, filmId, entry, needles, exact);
+                if (++scanned >= maxCandidates) {
+                    break;
+                }
+            }
+        } else {
+            boolean expanded = candidates.size() > 1;
+            for (Map.Entry<String, LongHashSet> posting : candidates.entrySet()) {
+                for (long filmId : posting.getValue().toLongArray()) {
+                    Entry entry = entries.get(filmId);
+                    if (entry == null || expanded && !firstMatchIs(entry, selectiveNeedle, posting.getKey())) {
+                        continue;
+                    }
+                    scanned++;
+                    offer(top, resultLimit, filmId, entry, needles, exact);
+                }
+            }
+        }
+
+        List<Match> ranked = new ArrayList<>(top);
+        ranked.sort(BEST_FIRST);
+        List<Long> filmIds = new ArrayList<>(ranked.size());
+        for (Match match : ranked) {
+            filmIds.add(match.filmId());
+        }
+        if (truncated) {
+            log.debug("По запросу из {} слов кандидатов не меньше {}, просмотрены {} самых популярных, найдено {}",
+                    tokens.length, maxCandidates, scanned, filmIds.size());
+        } else {
+            log.debug("По запросу из {} слов просмотрено {} кандидатов, найдено {}", tokens.length, scanned,
+                    filmIds.size());
+        }
+
+        return filmStorage.findAllByIds(filmIds);
+    }
+
+    @Override
+    public void onStart() {
+        postings.clear();
+        entries.clear();
+        filmsByLikesStale = true;
+        List<Film> films = filmStorage.getAllFilms();
+        for (Film film : films) {
+            index(film);
+        }
+        log.info("Поисковый индекс построен: фильмов {}, слов {}", entries.size(), postings.size());
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        Set<Long> stale = new LinkedHashSet<>();
+        for (DomainEvent event : events) {
+            switch (event) {
+                case DomainEvent.FilmCreated created -> stale.add(created.filmId());
+                case DomainEvent.FilmUpdated updated -> stale.add(updated.filmId());
+                case DomainEvent.LikeAdded added -> stale.add(added.filmId());
+                case DomainEvent.LikeRemoved removed -> stale.add(removed.filmId());
+                case DomainEvent.FilmDeleted deleted -> {
+                    stale.remove(deleted.filmId());
+                    remove(deleted.filmId());
+                }
+                case DomainEvent.FilmsCleared cleared -> {
+                    stale.clear();
+                    postings.clear();
+                    entries.clear();
+                    filmsByLikesStale = true;
+                }
+                default -> {
+                }
+            }
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        for (Film film : filmStorage.findAllByIds(stale)) {
+            stale.remove(film.getId());
+            index(film);
+        }
+        for (Long filmId : stale) {
+            remove(filmId);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.search.index.films", entries, Map::size)
+                .register(registry);
+        Gauge.builder("filmorate.search.index.terms", postings, Map::size)
+                .register(registry);
+    }
+
+    private void index(Film film) {
+        long filmId = film.getId();
+        int likes = film.getUserLikes() == null ? film.getLikes() : film.getUserLikes().size();
+        Entry previous = entries.get(filmId);
+        if (previous != null && Objects.equals(previous.name(), film.getName())
+                && Objects.equals(previous.description(), film.getDescription())) {
+            if (previous.likes() != likes) {
+                entries.put(filmId, new Entry(previous.name(), previous.description(), previous.terms(),
+                        previous.nameLength(), likes));
+                filmsByLikesStale = true;
+            }
+            return;
+        }
+
+        Set<String> terms = new LinkedHashSet<>(Arrays.asList(tokenize(film.getName())));
+        int nameLength = terms.size() + terms.stream().mapToInt(String::length).sum();
+        terms.addAll(Arrays.asList(tokenize(film.getDescription())));
+        StringBuilder joined = new StringBuilder();
+        for (String term : terms) {
+            joined.append(TERM_SEPARATOR).append(term);
+            postings.computeIfAbsent(term, key -> new LongHashSet()).addLong(filmId);
+        }
+        entries.put(filmId, new Entry(film.getName(), film.getDescription(), joined.toString(), nameLength, likes));
+        filmsByLikesStale = true;
+
+        if (previous != null) {
+            removePostings(previous, filmId, terms);
+        }
+    }
+
+    private void remove(long filmId) {
+        Entry entry = entries.remove(filmId);
+        if (entry != null) {
+            removePostings(entry, filmId, Set.of());
+            filmsByLikesStale = true;
+        }
+    }
+
+    private void removePostings(Entry entry, long filmId, Set<String> kept) {
+        if (entry.terms().isEmpty()) {
+            return;
+        }
+        for (String term : entry.terms().substring(1).split(TERM_SEPARATOR)) {
+            if (!kept.contains(term)) {
+                postings.computeIfPresent(term, (key, ids) -> ids.removeLong(filmId) && ids.isEmpty() ? null : ids);
+            }
+        }
+    }
+
+    private long[] filmsByLikes() {
+        if (filmsByLikesStale && System.nanoTime() - filmsByLikesBuiltAt >= ORDER_REFRESH_NANOS) {
+            synchronized (this) {
+                if (filmsByLikesStale && System.nanoTime() - filmsByLikesBuiltAt >= ORDER_REFRESH_NANOS) {
+                    filmsByLikesStale = false;
+                    List<Map.Entry<Long, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+                    snapshot.sort(Comparator.comparingInt((Map.Entry<Long, Entry> film) -> film.getValue().likes())
+                            .reversed()
+                            .thenComparingLong(Map.Entry::getKey));
+                    long[] order = new long[snapshot.size()];
+                    for (int i = 0; i < order.length; i++) {
+                        order[i] = snapshot.get(i).getKey();
+                    }
+                    filmsByLikes = order;
+                    filmsByLikesBuiltAt = System.nanoTime();
+                }
+            }
+        }
+        return filmsByLikes;
+    }
+
+    private static void offer(PriorityQueue<Match> top, int limit, long filmId, Entry entry, String[] needles,
+                              boolean[] exact) {
+        int score = score(entry, needles, exact);
+        if (score == 0) {
+            return;
+        }
+        Match match = new Match(filmId, score, entry.likes());
+        if (top.size() == limit && BEST_FIRST.compare(match, top.peek()) > 0) {
+            return;
+        }
+        top.add(match);
+        if (top.size() > limit) {
+            top.poll();
+        }
+    }
+
+    private static int score(Entry entry, String[] needles, boolean[] exact) {
+        int score = 0;
+        for (int i = 0; i < needles.length; i++) {
+            int position = position(entry.terms(), needles[i], exact[i]);
+            if (position < 0) {
+                return 0;
+            }
+            score += position < entry.nameLength() ? 2 : 1;
+        }
+        return score;
+    }
+
+    private static int position(String terms, String needle, boolean exact) {
+        int position = terms.indexOf(needle);
+        while (exact && position >= 0) {
+            int end = position + needle.length();
+            if (end == terms.length() || terms.startsWith(TERM_SEPARATOR, end)) {
+                break;
+            }
+            position = terms.indexOf(needle, end);
+        }
+        return position;
+    }
+
+    private static boolean firstMatchIs(Entry entry, String needle, String term) {
+        String terms = entry.terms();
+        int start = terms.indexOf(needle) + 1;
+        int end = start + term.length();
+        return start > 0 && terms.startsWith(term, start)
+                && (end == terms.length() || terms.startsWith(TERM_SEPARATOR, end));
+    }
+
+    static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return NO_TERMS;
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char symbol = text.charAt(i);
+            if (Character.isLetterOrDigit(symbol)) {
+                symbol = Character.toLowerCase(symbol);
+                term.append(symbol == 'ё' ? 'е' : symbol);
+            } else if (!term.isEmpty()) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (!term.isEmpty()) {
+            terms.add(term.toString());
+        }
+        return terms.toArray(NO_TERMS);
+    }
+
+    private record Entry(String name, String description, String terms, int nameLength, int likes) {
+    }
+
+    private record Match(long filmId, int score, int likes) {
+    }
+}
@@ -1,34 +1,76 @@
 package ru.yandex.practicum.filmorate.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 @Service
+@Timed(value = "filmorate.service", histogram = true)
 public class FilmService {
     FilmStorage filmStorage;
+    private final PopularFilmsCache popularFilmsCache;
+    private final NdjsonStream<Film> ndjson;
 
 
-    public FilmService(FilmStorage filmStorage) {
+    public FilmService(FilmStorage filmStorage, PopularFilmsCache popularFilmsCache, ObjectMapper objectMapper) {
         this.filmStorage = filmStorage;
+        this.popularFilmsCache = popularFilmsCache;
+        this.ndjson = new NdjsonStream<>(objectMapper, Film.class, Film::getId);
     }
 
     public Film createFilm(Film film) {
-        return filmStorage.create(film);
+        Film createdFilm = filmStorage.create(film);
+        popularFilmsCache.filmChanged(createdFilm);
+        return createdFilm;
+    }
+
+    public List<ImportResult> importFilms(List<Film> films) {
+        List<ImportResult> results = filmStorage.createAll(films);
+        popularFilmsCache.invalidate();
+        return results;
+    }
+
+    public List<ImportResult> importFilms(InputStream in) throws IOException {
+        try {
+            return ndjson.importChunks(in, filmStorage::createAll);
+        } finally {
+            popularFilmsCache.invalidate();
+        }
     }
 
     public Film updateFilm(Film film) {
-        return filmStorage.update(film);
+        Film updatedFilm = filmStorage.update(film);
+        popularFilmsCache.filmChanged(updatedFilm);
+        return updatedFilm;
     }
 
     public List<Film> getAllFilms() {
         return filmStorage.getAllFilms();
     }
 
+    public List<Film> getAllFilms(Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Размер страницы должен быть положительным числом");
+        }
+        return filmStorage.getAllFilms(afterId, limit);
+    }
+
+    public void exportFilms(OutputStream out) throws IOException {
+        ndjson.export(out, filmStorage::getAllFilms);
+    }
+
     public void clearFilm() {
         filmStorage.clearFilm();
+        popularFilmsCache.invalidate();
     }
 
     public Film findById(Long filmId) {
@@ -37,5 +79,6 @@ public class FilmService {
 
     public void deleteFilmById(Long filmId) {
         filmStorage.deleteFilmById(filmId);
+        popularFilmsCache.filmDeleted(filmId);
     }
 }
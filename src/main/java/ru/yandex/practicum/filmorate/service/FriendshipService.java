@@ -1,32 +1,48 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.audit.AuditEvent;
+import ru.yandex.practicum.filmorate.audit.AuditLog;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "filmorate.service", histogram = true)
 public class FriendshipService {
 
     private static Logger log = LoggerFactory.getLogger(FriendshipService.class);
 
     private final UserStorage userStorage;
+    private final Counter addedFriendships;
+    private final Counter removedFriendships;
+    private final AuditLog auditLog;
 
 
-    public FriendshipService(UserStorage userStorage) {
+    public FriendshipService(UserStorage userStorage, MeterRegistry meterRegistry, AuditLog auditLog) {
         this.userStorage = userStorage;
+        this.auditLog = auditLog;
+        this.addedFriendships = meterRegistry.counter("filmorate.friendships", "operation", "add");
+        this.removedFriendships = meterRegistry.counter("filmorate.friendships", "operation", "remove");
     }
 
     public Set<Long> addFriends(@NotNull Long userId, @NotNull Long friendId) {
-        log.info("Попытка добавить друга: пользователь ID: {}, друг ID: {}", userId, friendId);
+        log.debug("Попытка добавить друга: пользователь ID: {}, друг ID: {}", userId, friendId);
 
         User user = userStorage.findById(userId);
         User userFriendId = userStorage.findById(friendId);
@@ -36,18 +52,16 @@ public class FriendshipService {
             throw new NotFoundException("Пользователь  с ID: " + userId + " или друг с ID " + friendId + " не найдены");
         }
 
-        if (user.getFriends().contains(friendId)) {
+        if (!userStorage.addFriend(userId, friendId)) {
             log.error("Пользователь с ID {} уже является другом", friendId);
             throw new ValidationException("Пользователь уже является другом");
         }
-        user.getFriends().add(friendId);
-        userFriendId.getFriends().add(userId);
-        userStorage.update(user);
-        userStorage.update(userFriendId);
+        user = userStorage.findById(userId);
 
+        addedFriendships.increment();
+        auditLog.record(AuditEvent.FRIEND, userId, friendId);
         log.info("Пользователь {} успешно добавил в друзья пользователя {}", userId, friendId);
-        log.info("Список друзей пользователя {}: {}", user.getName(), user.getFriends());
-        log.info("Список друзей пользователя {}: {}", userFriendId.getName(), userFriendId.getFriends());
+        log.debug("Количество друзей пользователя {}: {}", userId, user.getFriends().size());
 
         return user.getFriends();
     }
@@ -61,15 +75,52 @@ public class FriendshipService {
             throw new NotFoundException("Пользователь или друг с ID: " + userId + " " + friendId + " не найдены");
         }
 
-        user.getFriends().remove(friendId);
-        userFriendId.getFriends().remove(userId);
+        if (userStorage.removeFriend(userId, friendId)) {
+            removedFriendships.increment();
+            auditLog.record(AuditEvent.UNFRIEND, userId, friendId);
+            log.info("Пользователь {} успешно удалил пользователя {} из своих друзей", userId, friendId);
+        } else {
+            log.debug("Пользователь {} не является другом пользователя {}", friendId, userId);
+        }
 
-        userStorage.update(user);
-        userStorage.update(userFriendId);
+        return userStorage.findById(userId).getFriends();
+    }
 
-        log.info("Пользователь {} успешно удалил пользователя {} из своих друзей", userId, friendId);
+    public List<ImportResult> applyFriendships(List<Friendship> friendships) {
+        ImportResult[] results = new ImportResult[friendships.size()];
+        List<Friendship> accepted = new ArrayList<>(friendships.size());
+        List<Integer> positions = new ArrayList<>(friendships.size());
+        for (int index = 0; index < friendships.size(); index++) {
+            Friendship friendship = friendships.get(index);
+            if (friendship.getUserId() == null || friendship.getFriendId() == null) {
+                results[index] = ImportResult.builder()
+                        .index(index)
+                        .id(friendship.getUserId())
+                        .error("Пользователь  с ID: " + friendship.getUserId() + " или друг с ID " +
+                                friendship.getFriendId() + " не найдены")
+                        .build();
+            } else {
+                accepted.add(friendship);
+                positions.add(index);
+            }
+        }
 
-        return user.getFriends();
+        List<ImportResult> storedResults = userStorage.applyFriendships(accepted);
+        for (int i = 0; i < storedResults.size(); i++) {
+            ImportResult result = storedResults.get(i);
+            result.setIndex(positions.get(i));
+            results[positions.get(i)] = result;
+            if (result.getError() == null) {
+                Friendship friendship = accepted.get(i);
+                boolean removed = friendship.getAction() == BatchAction.REMOVE;
+                (removed ? removedFriendships : addedFriendships).increment();
+                auditLog.record(removed ? AuditEvent.UNFRIEND : AuditEvent.FRIEND, friendship.getUserId(),
+                        friendship.getFriendId());
+            }
+        }
+
+        log.info("Применено операций с друзьями: {} из {}", countImported(results), friendships.size());
+        return Arrays.asList(results);
     }
 
     public List<User> getAllFriends(@NotNull Long userId) {
@@ -78,17 +129,13 @@ public class FriendshipService {
             log.error("Пользователь с ID {} не найден", userId);
             throw new NotFoundException("Пользователь с ID " + userId + " не найден.");
         }
-        log.info("Пользователь {} запросил список друзей: {}", userId, user.getFriends());
+        log.debug("Пользователь {} запросил список друзей, всего друзей: {}", userId, user.getFriends().size());
 
-        Set<Long> friendsId = user.getFriends();
-        List<User> friendList = friendsId.stream()
-                .map(friendId -> userStorage.findById(friendId))
-                .collect(Collectors.toList());
-        return friendList;
+        return userStorage.findAllByIds(user.getFriends());
     }
 
     public List<User> listMutualFriend(@NotNull Long userId, @NotNull Long friendId) {
-        log.info("Попытка найти общих друзей между пользователями с ID: {} и {}", userId, friendId);
+        log.debug("Попытка найти общих друзей между пользователями с ID: {} и {}", userId, friendId);
 
         User user = userStorage.findById(userId);
         User friend = userStorage.findById(friendId);
@@ -98,14 +145,14 @@ public class FriendshipService {
             throw new NotFoundException("Один из пользователей с ID: " + userId + " или " + friendId + " не найден");
         }
 
-        Set<Long> friendsOfUser = user.getFriends();
-        friendsOfUser.retainAll(friend.getFriends());
-        List<User> mutualList = friendsOfUser.stream()
-                .map(mutualId -> userStorage.findById(mutualId))
-                .collect(Collectors.toList());
+        List<User> mutualFriends = userStorage.findMutualFriends(userId, friendId);
 
-        log.info("Общие друзья между пользователями {} и {}: {}", userId, friendId, friendsOfUser);
+        log.debug("Общие друзья между пользователями {} и {}: {}", userId, friendId, mutualFriends.size());
+
+        return mutualFriends;
+    }
 
-        return mutualList;
+    private static long countImported(ImportResult[] results) {
+        return Arrays.stream(results).filter(result -> result.getError() == null).count();
     }
 }
@@ -1,90 +1,141 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.audit.AuditEvent;
+import ru.yandex.practicum.filmorate.audit.AuditLog;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
-import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
-import java.util.Comparator;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 @Service
+@Timed(value = "filmorate.service", histogram = true)
 public class LikeService {
     private static Logger log = LoggerFactory.getLogger(LikeService.class);
 
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final PopularFilmsCache popularFilmsCache;
+    private final Counter addedLikes;
+    private final Counter removedLikes;
+    private final AuditLog auditLog;
 
-    public LikeService(FilmStorage filmStorage, UserStorage userStorage) {
+    public LikeService(FilmStorage filmStorage, UserStorage userStorage, PopularFilmsCache popularFilmsCache,
+                       MeterRegistry meterRegistry, AuditLog auditLog) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
+        this.popularFilmsCache = popularFilmsCache;
+        this.auditLog = auditLog;
+        this.addedLikes = meterRegistry.counter("filmorate.likes", "operation", "add");
+        this.removedLikes = meterRegistry.counter("filmorate.likes", "operation", "remove");
     }
 
     public Set<Long> addLike(@NotNull Long filmId, @NotNull Long userId) {
         log.debug("Добавление лайка пользователем {} к фильму {}", userId, filmId);
 
-        Film filmForLikeAdd = filmStorage.findById(filmId);
-        if (filmForLikeAdd == null) {
-            log.error("Фильм с ID {} не найден", filmId);
-            throw new ValidationException("Фильм не найден");
-        }
-
         if (userStorage.findById(userId) == null) {
             log.error("Пользователь с ID {}, который ставит лайк не существует", userId);
             throw new NotFoundException("Пользователь с ID " + userId + " ,котоырй хочет поставить like не существует");
         }
 
-        if (!filmForLikeAdd.getUserLikes().add(userId)) {
-            log.warn("Пользователь {} уже поставил лайк фильму {}", userId, filmId);
-            throw new ValidationException("Пользователь может поставить только один раз лайк фильму");
-        }
-
-        filmForLikeAdd.setLikes(filmForLikeAdd.getLikes() + 1);
-
-        filmStorage.update(filmForLikeAdd);
+        int likes = filmStorage.addLike(filmId, userId);
+        popularFilmsCache.filmChanged(filmId, likes);
+        addedLikes.increment();
+        auditLog.record(AuditEvent.LIKE, userId, filmId);
 
-        log.info("Пользователь {} успешно поставил лайк фильму {}", userId, filmId);
+        log.debug("Пользователь {} успешно поставил лайк фильму {}, всего лайков {}", userId, filmId, likes);
 
-        return filmForLikeAdd.getUserLikes();
+        return filmStorage.findById(filmId).getUserLikes();
     }
 
     public Set<Long> deleteLike(@NotNull Long filmId, @NotNull Long userId) {
         log.debug("Удаление лайка пользователем {} к фильму {}", userId, filmId);
-        Film filmForLikeDelete = filmStorage.findById(filmId);
 
-        if (filmForLikeDelete == null) {
-            log.warn("Фильм с ID {} не существует", filmId);
-            throw new NotFoundException("Фильма с ID " + filmId + " не существует");
-        }
-
-        if (userStorage.findById(userId) == null || !filmForLikeDelete.getUserLikes().remove(userId)) {
+        if (userStorage.findById(userId) == null) {
             log.error("Пользователь с ID {}, который удаляет лайк не существует", userId);
             throw new NotFoundException("Пользователь с ID " + userId + " ,котоырй хочет поставить like не существует");
         }
 
-        filmForLikeDelete.setLikes(filmForLikeDelete.getLikes() - 1);
+        int likes = filmStorage.removeLike(filmId, userId);
+        popularFilmsCache.filmChanged(filmId, likes);
+        removedLikes.increment();
+        auditLog.record(AuditEvent.UNLIKE, userId, filmId);
+        log.debug("Пользователь {} успешно удалил лайк у фильма {}, всего лайков {}", userId, filmId, likes);
+
+        return filmStorage.findById(filmId).getUserLikes();
+    }
+
+    public List<ImportResult> applyLikes(List<Like> likes) {
+        Set<Long> userIds = new HashSet<>();
+        for (Like like : likes) {
+            if (like.getUserId() != null) {
+                userIds.add(like.getUserId());
+            }
+        }
+        Set<Long> existingUsers = new HashSet<>();
+        for (User user : userStorage.findAllByIds(userIds)) {
+            existingUsers.add(user.getId());
+        }
+
+        ImportResult[] results = new ImportResult[likes.size()];
+        List<Like> accepted = new ArrayList<>(likes.size());
+        List<Integer> positions = new ArrayList<>(likes.size());
+        for (int index = 0; index < likes.size(); index++) {
+            Like like = likes.get(index);
+            if (like.getFilmId() == null || !existingUsers.contains(like.getUserId())) {
+                results[index] = ImportResult.builder()
+                        .index(index)
+                        .id(like.getFilmId())
+                        .error("Пользователь с ID " + like.getUserId() + " ,котоырй хочет поставить like не существует")
+                        .build();
+            } else {
+                accepted.add(like);
+                positions.add(index);
+            }
+        }
 
-        filmStorage.update(filmForLikeDelete);
-        log.debug("Пользователь {} успешно удалил лайк у фильма {}", userId, filmId);
+        List<ImportResult> storedResults = filmStorage.applyLikes(accepted);
+        for (int i = 0; i < storedResults.size(); i++) {
+            ImportResult result = storedResults.get(i);
+            result.setIndex(positions.get(i));
+            results[positions.get(i)] = result;
+            if (result.getError() == null) {
+                Like like = accepted.get(i);
+                boolean removed = like.getAction() == BatchAction.REMOVE;
+                (removed ? removedLikes : addedLikes).increment();
+                auditLog.record(removed ? AuditEvent.UNLIKE : AuditEvent.LIKE, like.getUserId(), like.getFilmId());
+            }
+        }
+        if (countImported(results) > 0) {
+            popularFilmsCache.invalidate();
+        }
 
-        return filmForLikeDelete.getUserLikes();
+        log.info("Применено операций с лайками: {} из {}", countImported(results), likes.size());
+        return Arrays.asList(results);
     }
 
     public List<Film> top10PopularMovies(Integer count) {
         log.debug("Количество фильмов для создания списка {}", count);
 
-        List<Film> films = filmStorage.getAllFilms();
-        log.debug("Список фильмов для сортировки {}", films);
+        long stamp = popularFilmsCache.changeStamp();
+        List<Film> films = filmStorage.getPopularFilms(count);
+        popularFilmsCache.recordRanking(count, films, stamp);
+        return films;
+    }
 
-        return films.stream()
-                .sorted(Comparator.comparingInt(Film::getLikes).reversed())
-                .limit(count)
-                .toList();
+    private static long countImported(ImportResult[] results) {
+        return Arrays.stream(results).filter(result -> result.getError() == null).count();
     }
 }
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+final class NdjsonStream<T> {
+
+    private static final int EXPORT_BATCH_SIZE = 1000;
+    private static final int IMPORT_BATCH_SIZE = 10_000;
+
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    private final Function<T, Long> idOf;
+
+    NdjsonStream(ObjectMapper objectMapper, Class<T> type, Function<T, Long> idOf) {
+        this.writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        this.reader = objectMapper.readerFor(type);
+        this.idOf = idOf;
+    }
+
+    List<ImportResult> importChunks(InputStream in, Function<List<T>, List<ImportResult>> createAll)
+            throws IOException {
+        List<ImportResult> results = new ArrayList<>();
+        List<T> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        try (MappingIterator<T> iterator = reader.readValues(in)) {
+            while (iterator.hasNextValue()) {
+                batch.add(iterator.nextValue());
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    appendResults(results, createAll.apply(batch));
+                    batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            if (!batch.isEmpty()) {
+                appendResults(results, createAll.apply(batch));
+            }
+            results.add(ImportResult.builder()
+                    .index(results.size())
+                    .error("Некорректная запись NDJSON: " + e.getOriginalMessage())
+                    .build());
+            return results;
+        }
+        if (!batch.isEmpty()) {
+            appendResults(results, createAll.apply(batch));
+        }
+        return results;
+    }
+
+    void export(OutputStream out, BiFunction<Long, Integer, List<T>> page) throws IOException {
+        try (SequenceWriter sequence = writer.writeValues(out)) {
+            List<T> batch;
+            Long afterId = null;
+            do {
+                batch = page.apply(afterId, EXPORT_BATCH_SIZE);
+                for (T value : batch) {
+                    sequence.write(value);
+                    afterId = idOf.apply(value);
+                }
+            } while (batch.size() == EXPORT_BATCH_SIZE);
+            sequence.flush();
+            if (afterId != null) {
+                out.write('\n');
+            }
+        }
+    }
+
+    private static void appendResults(List<ImportResult> results, List<ImportResult> batchResults) {
+        int offset = results.size();
+        for (ImportResult result : batchResults) {
+            result.setIndex(offset + result.getIndex());
+            results.add(result);
+        }
+    }
+}
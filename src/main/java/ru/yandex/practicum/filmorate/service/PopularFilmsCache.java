@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class PopularFilmsCache {
+
+    private static final int MAX_CACHED_COUNTS = 64;
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    private final LongAdder changes = new LongAdder();
+
+    private final Map<Integer, CachedResponse> responses = new ConcurrentHashMap<>();
+
+    private final Set<Long> servedFilms = ConcurrentHashMap.newKeySet();
+    private volatile int lowestServedLikes = Integer.MAX_VALUE;
+    private volatile boolean partialServed;
+
+    public long currentVersion() {
+        return version.get();
+    }
+
+    public long changeStamp() {
+        return changes.sum();
+    }
+
+    public synchronized void invalidate() {
+        version.incrementAndGet();
+        responses.clear();
+        servedFilms.clear();
+        lowestServedLikes = Integer.MAX_VALUE;
+        partialServed = false;
+    }
+
+    public synchronized void recordRanking(int count, List<Film> films, long stamp) {
+        for (Film film : films) {
+            servedFilms.add(film.getId());
+        }
+        if (films.size() < count) {
+            partialServed = true;
+        } else if (!films.isEmpty()) {
+            lowestServedLikes = Math.min(lowestServedLikes, films.get(films.size() - 1).getLikes());
+        }
+        if (changes.sum() != stamp) {
+            invalidate();
+        }
+    }
+
+    public void filmChanged(long filmId, int likes) {
+        changes.increment();
+        if (partialServed || likes >= lowestServedLikes || servedFilms.contains(filmId)) {
+            invalidate();
+        }
+    }
+
+    public void filmChanged(Film film) {
+        int likes = film.getLikes();
+        if (film.getUserLikes() != null) {
+            likes = Math.max(likes, film.getUserLikes().size());
+        }
+        filmChanged(film.getId(), likes);
+    }
+
+    public void filmDeleted(long filmId) {
+        changes.increment();
+        if (servedFilms.contains(filmId)) {
+            invalidate();
+        }
+    }
+
+    public String eTag(int count, long version) {
+        return "\"" + version + "-" + count + "\"";
+    }
+
+    public CachedResponse get(int count, long version) {
+        CachedResponse response = responses.get(count);
+        if (response == null || response.version() != version) {
+            return null;
+        }
+        return response;
+    }
+
+    public void put(int count, long version, String contentType, byte[] body) {
+        if (version != this.version.get()) {
+            return;
+        }
+        if (responses.size() >= MAX_CACHED_COUNTS && !responses.containsKey(count)) {
+            return;
+        }
+        responses.put(count, new CachedResponse(version, contentType, body));
+    }
+
+    public record CachedResponse(long version, String contentType, byte[] body) {
+    }
+}
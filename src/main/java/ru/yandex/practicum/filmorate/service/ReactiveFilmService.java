@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+@Service
+public class ReactiveFilmService {
+
+    private static final int STREAM_PAGE_SIZE = 1000;
+
+    private final FilmService filmService;
+    private final LikeService likeService;
+    private final Scheduler storageScheduler = Schedulers.boundedElastic();
+
+    public ReactiveFilmService(FilmService filmService, LikeService likeService) {
+        this.filmService = filmService;
+        this.likeService = likeService;
+    }
+
+    public Flux<Film> getAllFilms() {
+        return page(null)
+                .expand(films -> films.size() < STREAM_PAGE_SIZE
+                        ? Mono.empty()
+                        : page(films.get(films.size() - 1).getId()))
+                .concatMapIterable(films -> films);
+    }
+
+    public Flux<Film> getPopularFilms(int count) {
+        return blocking(() -> likeService.top10PopularMovies(count)).flatMapIterable(films -> films);
+    }
+
+    public Mono<Film> findById(Long filmId) {
+        return blocking(() -> filmService.findById(filmId));
+    }
+
+    public Mono<Film> createFilm(Film film) {
+        return blocking(() -> filmService.createFilm(film));
+    }
+
+    public Mono<Film> updateFilm(Film film) {
+        return blocking(() -> filmService.updateFilm(film));
+    }
+
+    public Mono<Set<Long>> addLike(Long filmId, Long userId) {
+        return blocking(() -> likeService.addLike(filmId, userId));
+    }
+
+    public Mono<Set<Long>> deleteLike(Long filmId, Long userId) {
+        return blocking(() -> likeService.deleteLike(filmId, userId));
+    }
+
+    public Mono<Void> deleteFilmById(Long filmId) {
+        return Mono.<Void>fromRunnable(() -> filmService.deleteFilmById(filmId)).subscribeOn(storageScheduler);
+    }
+
+    private Mono<List<Film>> page(Long afterId) {
+        return blocking(() -> filmService.getAllFilms(afterId, STREAM_PAGE_SIZE));
+    }
+
+    private <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(storageScheduler);
+    }
+}
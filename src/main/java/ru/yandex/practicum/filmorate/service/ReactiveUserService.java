@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+@Service
+public class ReactiveUserService {
+
+    private static final int STREAM_PAGE_SIZE = 1000;
+
+    private final UserService userService;
+    private final FriendshipService friendshipService;
+    private final Scheduler storageScheduler = Schedulers.boundedElastic();
+
+    public ReactiveUserService(UserService userService, FriendshipService friendshipService) {
+        this.userService = userService;
+        this.friendshipService = friendshipService;
+    }
+
+    public Flux<User> getAllUsers() {
+        return page(null)
+                .expand(users -> users.size() < STREAM_PAGE_SIZE
+                        ? Mono.empty()
+                        : page(users.get(users.size() - 1).getId()))
+                .concatMapIterable(users -> users);
+    }
+
+    public Mono<User> findById(Long userId) {
+        return blocking(() -> userService.findById(userId));
+    }
+
+    public Mono<User> createUser(User user) {
+        return blocking(() -> userService.createUser(user));
+    }
+
+    public Mono<User> updateUser(User user) {
+        return blocking(() -> userService.updateUser(user));
+    }
+
+    public Flux<User> getAllFriends(Long userId) {
+        return blocking(() -> friendshipService.getAllFriends(userId)).flatMapIterable(users -> users);
+    }
+
+    public Flux<User> listMutualFriend(Long userId, Long otherId) {
+        return blocking(() -> friendshipService.listMutualFriend(userId, otherId)).flatMapIterable(users -> users);
+    }
+
+    public Mono<Set<Long>> addFriends(Long userId, Long friendId) {
+        return blocking(() -> friendshipService.addFriends(userId, friendId));
+    }
+
+    public Mono<Set<Long>> deleteFromFriends(Long userId, Long friendId) {
+        return blocking(() -> friendshipService.deleteFromFriends(userId, friendId));
+    }
+
+    public Mono<Void> deleteUserById(Long userId) {
+        return Mono.<Void>fromRunnable(() -> userService.deleteUserById(userId)).subscribeOn(storageScheduler);
+    }
+
+    private Mono<List<User>> page(Long afterId) {
+        return blocking(() -> userService.getAllUsers(afterId, STREAM_PAGE_SIZE));
+    }
+
+    private <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(storageScheduler);
+    }
+}
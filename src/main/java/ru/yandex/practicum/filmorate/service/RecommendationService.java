@@ -0,0 +1,185 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.DomainEvent;
+import ru.yandex.practicum.filmorate.event.DomainEventBus;
+import ru.yandex.practicum.filmorate.event.DomainEventListener;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Timed(value = "filmorate.service", histogram = true)
+public class RecommendationService implements DomainEventListener {
+
+    private static Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+
+    private final Map<Long, LongHashSet> filmsByUser = new ConcurrentHashMap<>();
+    private final Map<Long, LongHashSet> usersByFilm = new ConcurrentHashMap<>();
+
+    public RecommendationService(FilmStorage filmStorage, UserStorage userStorage, DomainEventBus eventBus) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        eventBus.subscribe(this);
+    }
+
+    public List<Film> getRecommendations(Long userId) {
+        userStorage.findById(userId);
+
+        LongHashSet likedFilms = filmsByUser.get(userId);
+        if (likedFilms == null || likedFilms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Integer> overlaps = new HashMap<>();
+        for (long filmId : likedFilms.toLongArray()) {
+            LongHashSet likers = usersByFilm.get(filmId);
+            if (likers == null) {
+                continue;
+            }
+            for (long otherId : likers.toLongArray()) {
+                if (otherId != userId) {
+                    overlaps.merge(otherId, 1, Integer::sum);
+                }
+            }
+        }
+
+        long closestUser = 0;
+        int bestOverlap = 0;
+        for (Map.Entry<Long, Integer> entry : overlaps.entrySet()) {
+            if (entry.getValue() > bestOverlap || entry.getValue() == bestOverlap && entry.getKey() < closestUser) {
+                closestUser = entry.getKey();
+                bestOverlap = entry.getValue();
+            }
+        }
+        if (bestOverlap == 0) {
+            return new ArrayList<>();
+        }
+
+        List<Long> recommended = new ArrayList<>();
+        for (long filmId : filmsByUser.getOrDefault(closestUser, new LongHashSet()).toLongArray()) {
+            if (!likedFilms.containsLong(filmId)) {
+                recommended.add(filmId);
+            }
+        }
+        Collections.sort(recommended);
+        log.debug("Для пользователя {} найден похожий пользователь {}, рекомендаций: {}", userId, closestUser,
+                recommended.size());
+
+        return filmStorage.findAllByIds(recommended);
+    }
+
+    @Override
+    public void onStart() {
+        filmsByUser.clear();
+        usersByFilm.clear();
+        List<Film> films = filmStorage.getAllFilms();
+        for (Film film : films) {
+            if (film.getUserLikes() != null) {
+                for (long userId : film.getUserLikes().toLongArray()) {
+                    like(film.getId(), userId);
+                }
+            }
+        }
+        log.info("Индекс рекомендаций построен: фильмов {}, пользователей с лайками {}", films.size(),
+                filmsByUser.size());
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            switch (event) {
+                case DomainEvent.LikeAdded added -> like(added.filmId(), added.userId());
+                case DomainEvent.LikeRemoved removed -> unlike(removed.filmId(), removed.userId());
+                case DomainEvent.FilmUpdated updated -> resync(updated.filmId());
+                case DomainEvent.FilmDeleted deleted -> removeFilm(deleted.filmId());
+                case DomainEvent.UserDeleted deleted -> removeUser(deleted.userId());
+                case DomainEvent.FilmsCleared cleared -> {
+                    filmsByUser.clear();
+                    usersByFilm.clear();
+                }
+                case DomainEvent.UsersCleared cleared -> {
+                    filmsByUser.clear();
+                    usersByFilm.clear();
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void like(long filmId, long userId) {
+        filmsByUser.computeIfAbsent(userId, id -> new LongHashSet()).addLong(filmId);
+        usersByFilm.computeIfAbsent(filmId, id -> new LongHashSet()).addLong(userId);
+    }
+
+    private void unlike(long filmId, long userId) {
+        LongHashSet films = filmsByUser.get(userId);
+        if (films != null) {
+            films.removeLong(filmId);
+        }
+        LongHashSet users = usersByFilm.get(filmId);
+        if (users != null) {
+            users.removeLong(userId);
+        }
+    }
+
+    private void resync(long filmId) {
+        Film film;
+        try {
+            film = filmStorage.findById(filmId);
+        } catch (NotFoundException e) {
+            removeFilm(filmId);
+            return;
+        }
+        LongHashSet current = film.getUserLikes() == null ? new LongHashSet() : film.getUserLikes();
+        LongHashSet indexed = usersByFilm.get(filmId);
+        if (indexed != null) {
+            for (long userId : indexed.toLongArray()) {
+                if (!current.containsLong(userId)) {
+                    unlike(filmId, userId);
+                }
+            }
+        }
+        for (long userId : current.toLongArray()) {
+            like(filmId, userId);
+        }
+    }
+
+    private void removeFilm(long filmId) {
+        LongHashSet users = usersByFilm.remove(filmId);
+        if (users == null) {
+            return;
+        }
+        for (long userId : users.toLongArray()) {
+            LongHashSet films = filmsByUser.get(userId);
+            if (films != null) {
+                films.removeLong(filmId);
+            }
+        }
+    }
+
+    private void removeUser(long userId) {
+        LongHashSet films = filmsByUser.remove(userId);
+        if (films == null) {
+            return;
+        }
+        for (long filmId : films.toLongArray()) {
+            LongHashSet users = usersByFilm.get(filmId);
+            if (users != null) {
+                users.removeLong(userId);
+            }
+        }
+    }
+}
@@ -1,25 +1,45 @@
 package ru.yandex.practicum.filmorate.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 @Service
+@Timed(value = "filmorate.service", histogram = true)
 public class UserService {
 
     private final UserStorage userStorage;
+    private final PopularFilmsCache popularFilmsCache;
+    private final NdjsonStream<User> ndjson;
 
 
-    public UserService(UserStorage userStorage) {
+    public UserService(UserStorage userStorage, PopularFilmsCache popularFilmsCache, ObjectMapper objectMapper) {
         this.userStorage = userStorage;
+        this.popularFilmsCache = popularFilmsCache;
+        this.ndjson = new NdjsonStream<>(objectMapper, User.class, User::getId);
     }
 
     public User createUser(User user) {
         return userStorage.create(user);
     }
 
+    public List<ImportResult> importUsers(List<User> users) {
+        return userStorage.createAll(users);
+    }
+
+    public List<ImportResult> importUsers(InputStream in) throws IOException {
+        return ndjson.importChunks(in, userStorage::createAll);
+    }
+
     public User updateUser(User user) {
         return userStorage.update(user);
     }
@@ -28,15 +48,28 @@ public class UserService {
         return userStorage.getAllUsers();
     }
 
+    public List<User> getAllUsers(Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Размер страницы должен быть положительным числом");
+        }
+        return userStorage.getAllUsers(afterId, limit);
+    }
+
+    public void exportUsers(OutputStream out) throws IOException {
+        ndjson.export(out, userStorage::getAllUsers);
+    }
+
     public User findById(Long userId) {
         return userStorage.findById(userId);
     }
 
     public void clearUser() {
         userStorage.clearUsers();
+        popularFilmsCache.invalidate();
     }
 
     public void deleteUserById(Long userId) {
         userStorage.deleteUserById(userId);
+        popularFilmsCache.invalidate();
     }
 }
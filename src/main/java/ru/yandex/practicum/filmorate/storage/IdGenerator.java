@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class IdGenerator {
+
+    private final AtomicLong lastId = new AtomicLong();
+
+    public long nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    public long nextBlock(int size) {
+        return lastId.getAndAdd(size) + 1;
+    }
+
+    public long lastId() {
+        return lastId.get();
+    }
+
+    public void advanceTo(long usedId) {
+        lastId.accumulateAndGet(usedId, Math::max);
+    }
+
+    public void reset() {
+        lastId.set(0);
+    }
+}
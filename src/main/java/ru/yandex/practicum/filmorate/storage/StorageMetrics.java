@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.cache.CacheStatistics;
+import ru.yandex.practicum.filmorate.storage.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.function.Supplier;
+
+@Component
+public class StorageMetrics implements MeterBinder {
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+
+    public StorageMetrics(FilmStorage filmStorage, UserStorage userStorage) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.storage.size", filmStorage, FilmStorage::count)
+                .description("Количество записей в хранилище")
+                .tag("entity", "films")
+                .register(registry);
+        Gauge.builder("filmorate.storage.size", userStorage, UserStorage::count)
+                .description("Количество записей в хранилище")
+                .tag("entity", "users")
+                .register(registry);
+
+        if (filmStorage instanceof CachingFilmStorage cachingFilmStorage) {
+            bindCache(registry, "films", cachingFilmStorage::statistics);
+        }
+        if (userStorage instanceof CachingUserStorage cachingUserStorage) {
+            bindCache(registry, "users", cachingUserStorage::statistics);
+        }
+    }
+
+    private static void bindCache(MeterRegistry registry, String cache, Supplier<CacheStatistics> statistics) {
+        FunctionCounter.builder("filmorate.cache.hits", statistics, s -> s.get().hits())
+                .tag("cache", cache)
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.misses", statistics, s -> s.get().misses())
+                .tag("cache", cache)
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.evictions", statistics, s -> s.get().evictions())
+                .tag("cache", cache)
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.flushed.writes", statistics, s -> s.get().flushedWrites())
+                .tag("cache", cache)
+                .register(registry);
+        Gauge.builder("filmorate.cache.size", statistics, s -> s.get().size())
+                .tag("cache", cache)
+                .register(registry);
+        Gauge.builder("filmorate.cache.pending.writes", statistics, s -> s.get().pendingWrites())
+                .tag("cache", cache)
+                .register(registry);
+        Gauge.builder("filmorate.cache.flush.lag", statistics, s -> s.get().lastFlushLagMs())
+                .tag("cache", cache)
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+}
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+public record CacheStatistics(long hits, long misses, long evictions, int size, int pendingWrites,
+                              long flushedWrites, long lastFlushLagMs) {
+
+    public double hitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,231 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+public class WriteBehindCache<T, C> {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindCache.class);
+
+    private final String name;
+    private final Function<T, Long> idOf;
+    private final LinkedHashMap<Long, T> entries;
+    private final Map<Long, T> pendingWrites = new LinkedHashMap<>();
+    private final Set<Long> pendingUpdates = new LinkedHashSet<>();
+    private final List<C> pendingChanges = new ArrayList<>();
+    private Map<Long, T> inFlight = new HashMap<>();
+    private long oldestPendingNanos;
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder flushedWrites = new LongAdder();
+    private volatile long lastFlushLagMs;
+
+    public interface Writer<T, C> {
+        List<T> write(List<C> changes, Collection<T> updated);
+    }
+
+    public WriteBehindCache(String name, int maxSize, Function<T, Long> idOf) {
+        this.name = name;
+        this.idOf = idOf;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, T> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    public synchronized T getIfPresent(long id) {
+        T entry = entries.get(id);
+        if (entry == null) {
+            entry = pendingWrites.get(id);
+            if (entry == null) {
+                entry = inFlight.get(id);
+            }
+            if (entry != null) {
+                entries.put(id, entry);
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    public synchronized T peek(long id) {
+        T entry = entries.get(id);
+        if (entry == null) {
+            entry = pendingWrites.get(id);
+        }
+        return entry == null ? inFlight.get(id) : entry;
+    }
+
+    public synchronized List<T> values() {
+        Map<Long, T> values = new LinkedHashMap<>(inFlight);
+        values.putAll(pendingWrites);
+        values.putAll(entries);
+        return new ArrayList<>(values.values());
+    }
+
+    public synchronized T putIfAbsent(long id, T entry) {
+        T existing = entries.putIfAbsent(id, entry);
+        return existing == null ? entry : existing;
+    }
+
+    public synchronized void put(long id, T entry) {
+        entries.put(id, entry);
+    }
+
+    public synchronized void markDirty(long id, T entry) {
+        pin(id, entry);
+        pendingUpdates.add(id);
+    }
+
+    public synchronized void recordChange(C change, List<T> touched) {
+        recordChanges(List.of(change), touched);
+    }
+
+    public synchronized void recordChanges(List<C> changes, List<T> touched) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (T entry : touched) {
+            pin(idOf.apply(entry), entry);
+        }
+        pendingChanges.addAll(changes);
+    }
+
+    public synchronized void discardChanges(Predicate<C> discarded) {
+        pendingChanges.removeIf(discarded);
+    }
+
+    public synchronized void invalidate(long id) {
+        entries.remove(id);
+        pendingWrites.remove(id);
+        pendingUpdates.remove(id);
+        inFlight.remove(id);
+    }
+
+    public synchronized void evict(long id, T entry) {
+        entries.remove(id, entry);
+        inFlight.remove(id, entry);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        pendingWrites.clear();
+        pendingUpdates.clear();
+        pendingChanges.clear();
+        inFlight.clear();
+    }
+
+    public void flush(Writer<T, C> writer, Predicate<C> stillPending) {
+        flushLock.lock();
+        try {
+            List<C> changes;
+            Map<Long, T> updated = new LinkedHashMap<>();
+            Map<Long, T> batch;
+            long pendingSince;
+            synchronized (this) {
+                if (pendingWrites.isEmpty()) {
+                    return;
+                }
+                batch = new LinkedHashMap<>(pendingWrites);
+                for (Long id : pendingUpdates) {
+                    updated.put(id, pendingWrites.get(id));
+                }
+                changes = new ArrayList<>(pendingChanges);
+                pendingSince = oldestPendingNanos;
+                pendingWrites.clear();
+                pendingUpdates.clear();
+                pendingChanges.clear();
+                inFlight = new HashMap<>(batch);
+            }
+
+            List<T> failed;
+            try {
+                failed = writer.write(changes, updated.values());
+                if (!failed.isEmpty()) {
+                    Map<Long, T> retried = new LinkedHashMap<>();
+                    for (T entry : failed) {
+                        retried.put(idOf.apply(entry), entry);
+                    }
+                    requeue(retried, retried.keySet(), List.of(), pendingSince);
+                }
+            } catch (RuntimeException e) {
+                log.error("Не удалось записать отложенные изменения кэша {}, записей: {}", name, batch.size(), e);
+                List<C> retried = new ArrayList<>();
+                for (C change : changes) {
+                    if (stillPending.test(change)) {
+                        retried.add(change);
+                    }
+                }
+                requeue(batch, updated.keySet(), retried, pendingSince);
+                return;
+            } finally {
+                synchronized (this) {
+                    inFlight = new HashMap<>();
+                }
+            }
+
+            flushedWrites.add(batch.size() - failed.size());
+            lastFlushLagMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pendingSince);
+            log.debug("Кэш {} сбросил изменений: {}, задержка {} мс", name, batch.size() - failed.size(),
+                    lastFlushLagMs);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public synchronized CacheStatistics statistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), entries.size(), pendingWrites.size(),
+                flushedWrites.sum(), lastFlushLagMs);
+    }
+
+    private void pin(long id, T entry) {
+        entries.put(id, entry);
+        if (pendingWrites.isEmpty()) {
+            oldestPendingNanos = System.nanoTime();
+        }
+        pendingWrites.put(id, entry);
+    }
+
+    private synchronized void requeue(Map<Long, T> batch, Set<Long> updatedIds, List<C> changes, long pendingSince) {
+        for (Map.Entry<Long, T> entry : batch.entrySet()) {
+            Long id = entry.getKey();
+            T current = pendingWrites.get(id);
+            if (!inFlight.containsKey(id) || current != null && current != entry.getValue()) {
+                continue;
+            }
+            pendingWrites.put(id, entry.getValue());
+            if (updatedIds.contains(id)) {
+                pendingUpdates.add(id);
+            }
+        }
+        pendingChanges.addAll(0, changes);
+        oldestPendingNanos = pendingSince;
+    }
+}
@@ -0,0 +1,312 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.event.DomainEvent;
+import ru.yandex.practicum.filmorate.event.DomainEventBus;
+import ru.yandex.practicum.filmorate.event.DomainEventListener;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
+import ru.yandex.practicum.filmorate.storage.cache.CacheStatistics;
+import ru.yandex.practicum.filmorate.storage.cache.WriteBehindCache;
+
+import java.util.*;
+
+@Component
+@Primary
+@Profile("jdbc")
+@ConditionalOnProperty(name = "filmorate.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingFilmStorage implements FilmStorage, DomainEventListener {
+
+    private static Logger log = LoggerFactory.getLogger(CachingFilmStorage.class);
+
+    private final FilmStorage delegate;
+    private final DomainEventBus eventBus;
+    private final WriteBehindCache<Film, Like> cache;
+
+    public CachingFilmStorage(JdbcFilmStorage delegate, DomainEventBus eventBus,
+                              @Value("${filmorate.cache.max-size:10000}") int maxSize) {
+        this.delegate = delegate;
+        this.eventBus = eventBus;
+        this.cache = new WriteBehindCache<>("films", maxSize, Film::getId);
+        eventBus.subscribe(this);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.cache.flush-interval-ms:100}")
+    public void flush() {
+        eventBus.publishAfter(() -> cache.flush(this::write, this::isPending));
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof DomainEvent.UserDeleted deleted) {
+                forgetUser(deleted.userId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    public CacheStatistics statistics() {
+        return cache.statistics();
+    }
+
+    @Override
+    public Film create(Film film) {
+        Film created = delegate.create(film);
+        cache.put(created.getId(), created);
+        return created;
+    }
+
+    @Override
+    public List<ImportResult> createAll(List<Film> newFilms) {
+        List<ImportResult> results = delegate.createAll(newFilms);
+        for (int index = 0; index < results.size(); index++) {
+            if (results.get(index).getError() == null) {
+                cache.put(results.get(index).getId(), newFilms.get(index));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public Film update(Film newFilm) {
+        FilmValidator.validate(newFilm);
+        if (newFilm.getId() == null) {
+            log.debug("Id не указан для обновления");
+            throw new ValidationException("Id должен быть указан");
+        }
+        try {
+            findById(newFilm.getId());
+        } catch (NotFoundException e) {
+            log.warn(" Фильм не найден с Id {}", newFilm.getId());
+            throw new NotFoundException("Фильм не найден");
+        }
+        if (newFilm.getUserLikes() == null) {
+            newFilm.setUserLikes(new LongHashSet());
+        }
+
+        cache.markDirty(newFilm.getId(), newFilm);
+        log.info("Фильм обновлён с Id {}", newFilm.getId());
+        return newFilm;
+    }
+
+    @Override
+    public int addLike(Long filmId, Long userId) {
+        Film film = findById(filmId);
+        synchronized (film) {
+            if (!film.getUserLikes().addLong(userId)) {
+                log.warn("Пользователь {} уже поставил лайк фильму {}", userId, filmId);
+                throw new ValidationException("Пользователь может поставить только один раз лайк фильму");
+            }
+            film.setLikes(film.getLikes() + 1);
+            cache.recordChange(Like.builder().filmId(filmId).userId(userId).action(BatchAction.ADD).build(),
+                    List.of(film));
+            return film.getLikes();
+        }
+    }
+
+    @Override
+    public int removeLike(Long filmId, Long userId) {
+        Film film = findById(filmId);
+        synchronized (film) {
+            if (!film.getUserLikes().removeLong(userId)) {
+                log.error("Пользователь с ID {}, который удаляет лайк не существует", userId);
+                throw new NotFoundException("Пользователь с ID " + userId +
+                        " ,котоырй хочет поставить like не существует");
+            }
+            film.setLikes(film.getLikes() - 1);
+            cache.recordChange(Like.builder().filmId(filmId).userId(userId).action(BatchAction.REMOVE).build(),
+                    List.of(film));
+            return film.getLikes();
+        }
+    }
+
+    @Override
+    public List<ImportResult> applyLikes(List<Like> likes) {
+        Map<Long, List<Integer>> indexesByFilm = new LinkedHashMap<>();
+        for (int index = 0; index < likes.size(); index++) {
+            indexesByFilm.computeIfAbsent(likes.get(index).getFilmId(), id -> new ArrayList<>()).add(index);
+        }
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (Film film : findAllByIds(indexesByFilm.keySet())) {
+            filmsById.put(film.getId(), film);
+        }
+
+        ImportResult[] results = new ImportResult[likes.size()];
+        for (Map.Entry<Long, List<Integer>> entry : indexesByFilm.entrySet()) {
+            Film film = filmsById.get(entry.getKey());
+            if (film == null) {
+                for (int index : entry.getValue()) {
+                    results[index] = ImportResult.builder().index(index).id(entry.getKey())
+                            .error("Фильм с ID " + entry.getKey() + " не найден").build();
+                }
+                continue;
+            }
+            synchronized (film) {
+                Map<Long, Like> netChanges = new LinkedHashMap<>();
+                for (int index : entry.getValue()) {
+                    Like like = likes.get(index);
+                    ImportResult.ImportResultBuilder result = ImportResult.builder().index(index).id(film.getId());
+                    boolean remove = like.getAction() == BatchAction.REMOVE;
+                    if (remove ? film.getUserLikes().removeLong(like.getUserId())
+                            : film.getUserLikes().addLong(like.getUserId())) {
+                        film.setLikes(film.getLikes() + (remove ? -1 : 1));
+                        if (netChanges.remove(like.getUserId()) == null) {
+                            netChanges.put(like.getUserId(), Like.builder().filmId(film.getId())
+                                    .userId(like.getUserId())
+                                    .action(remove ? BatchAction.REMOVE : BatchAction.ADD)
+                                    .build());
+                        }
+                    } else if (remove) {
+                        result.error("Пользователь с ID " + like.getUserId() +
+                                " ,котоырй хочет поставить like не существует");
+                    } else {
+                        result.error("Пользователь может поставить только один раз лайк фильму");
+                    }
+                    results[index] = result.build();
+                }
+                cache.recordChanges(new ArrayList<>(netChanges.values()), List.of(film));
+            }
+        }
+        flush();
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public List<Film> getAllFilms() {
+        flush();
+        return delegate.getAllFilms();
+    }
+
+    @Override
+    public List<Film> getAllFilms(Long afterId, int limit) {
+        flush();
+        return delegate.getAllFilms(afterId, limit);
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        flush();
+        return delegate.getPopularFilms(count);
+    }
+
+    @Override
+    public void clearFilm() {
+        cache.clear();
+        delegate.clearFilm();
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public Film findById(Long filmId) {
+        Film film = cache.getIfPresent(filmId);
+        if (film != null) {
+            return film;
+        }
+        return cache.putIfAbsent(filmId, delegate.findById(filmId));
+    }
+
+    @Override
+    public List<Film> findAllByIds(Collection<Long> filmIds) {
+        Map<Long, Film> filmsById = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long filmId : filmIds) {
+            Film film = cache.getIfPresent(filmId);
+            if (film == null) {
+                missingIds.add(filmId);
+            } else {
+                filmsById.put(filmId, film);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            for (Film film : delegate.findAllByIds(missingIds)) {
+                filmsById.put(film.getId(), cache.putIfAbsent(film.getId(), film));
+            }
+        }
+
+        List<Film> foundFilms = new ArrayList<>(filmsById.size());
+        for (Long filmId : filmIds) {
+            Film film = filmsById.get(filmId);
+            if (film != null) {
+                foundFilms.add(film);
+            }
+        }
+        return foundFilms;
+    }
+
+    @Override
+    public void deleteFilmById(Long filmId) {
+        cache.invalidate(filmId);
+        cache.discardChanges(like -> like.getFilmId().equals(filmId));
+        delegate.deleteFilmById(filmId);
+    }
+
+    private List<Film> write(List<Like> likes, Collection<Film> updatedFilms) {
+        if (!likes.isEmpty()) {
+            List<ImportResult> results = delegate.applyLikes(likes);
+            for (ImportResult result : results) {
+                if (result.getError() != null) {
+                    log.warn("Отложенный лайк {} отклонён: {}", likes.get(result.getIndex()), result.getError());
+                }
+            }
+        }
+        List<Film> retried = new ArrayList<>();
+        for (Film film : updatedFilms) {
+            try {
+                delegate.update(film);
+            } catch (NotFoundException e) {
+                log.warn("Отложенное обновление фильма с ID {} пропущено: фильм удалён", film.getId());
+            } catch (ValidationException | NonTransientDataAccessException e) {
+                log.error("Отложенное обновление фильма с ID {} отброшено: {}", film.getId(), e.getMessage());
+                cache.evict(film.getId(), film);
+            } catch (RuntimeException e) {
+                log.warn("Отложенное обновление фильма с ID {} будет повторено: {}", film.getId(), e.getMessage());
+                retried.add(film);
+            }
+        }
+        return retried;
+    }
+
+    private boolean isPending(Like like) {
+        Film film = cache.peek(like.getFilmId());
+        if (film == null) {
+            return false;
+        }
+        synchronized (film) {
+            return film.getUserLikes().containsLong(like.getUserId()) == (like.getAction() != BatchAction.REMOVE);
+        }
+    }
+
+    private void forgetUser(long userId) {
+        for (Film film : cache.values()) {
+            synchronized (film) {
+                if (film.getUserLikes().removeLong(userId)) {
+                    film.setLikes(film.getLikes() - 1);
+                }
+            }
+        }
+        cache.discardChanges(like -> like.getUserId() == userId);
+    }
+}
@@ -1,19 +1,38 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Like;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface FilmStorage {
     Film create(Film film);
 
+    List<ImportResult> createAll(List<Film> newFilms);
+
     Film update(Film newFilm);
 
+    int addLike(Long filmId, Long userId);
+
+    int removeLike(Long filmId, Long userId);
+
+    List<ImportResult> applyLikes(List<Like> likes);
+
     List<Film> getAllFilms();
 
+    List<Film> getAllFilms(Long afterId, int limit);
+
+    List<Film> getPopularFilms(int count);
+
     void clearFilm();
 
+    long count();
+
     Film findById(Long filmId);
 
+    List<Film> findAllByIds(Collection<Long> filmIds);
+
     void deleteFilmById(Long filmId);
 }
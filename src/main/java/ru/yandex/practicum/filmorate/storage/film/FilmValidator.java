@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+final class FilmValidator {
+
+    private static final LocalDate BEGINNING_OF_THE_DATE = LocalDate.of(1895, 12, 28);
+
+    private static final Logger log = LoggerFactory.getLogger(FilmValidator.class);
+
+    private FilmValidator() {
+    }
+
+    static void validate(Film film) {
+        if (film.getName() == null || film.getName().isEmpty()) {
+            log.warn("Наименование фильма {}", film.getName());
+            throw new ValidationException("Имя не должно быть пустым");
+        }
+        if (film.getDescription().length() >= 200) {
+            log.warn("Описание фильма {}", film.getDescription());
+            throw new ValidationException("Максимальная длина описания — 200 символов");
+        }
+        if (film.getReleaseDate().isBefore(BEGINNING_OF_THE_DATE)) {
+            log.warn("Дата релиза фильма {}", film.getReleaseDate());
+            throw new ValidationException("Дата релиза — не раньше 28 декабря 1895 года");
+        }
+        if (film.getDuration() == null || film.getDuration() <= 0) {
+            log.warn("Продолжительность фильма {}", film.getDuration());
+            throw new ValidationException("Продолжительность фильма должна быть положительным числом");
+        }
+    }
+
+    static ImportResult[] validateAll(List<Film> films) {
+        ImportResult[] results = new ImportResult[films.size()];
+        IntStream.range(0, films.size()).parallel().forEach(index -> {
+            String error = null;
+            try {
+                validate(films.get(index));
+            } catch (ValidationException e) {
+                error = e.getMessage();
+            } catch (RuntimeException e) {
+                error = "Некорректные данные фильма";
+            }
+            if (error != null) {
+                results[index] = ImportResult.builder().index(index).error(error).build();
+            }
+        });
+        return results;
+    }
+}
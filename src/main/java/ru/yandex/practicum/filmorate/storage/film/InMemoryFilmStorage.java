@@ -1,72 +1,421 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.event.DomainEvent;
+import ru.yandex.practicum.filmorate.event.DomainEventBus;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
+import ru.yandex.practicum.filmorate.storage.IdGenerator;
+import ru.yandex.practicum.filmorate.storage.snapshot.SnapshotReader;
+import ru.yandex.practicum.filmorate.storage.snapshot.SnapshotSource;
+import ru.yandex.practicum.filmorate.storage.snapshot.SnapshotStore;
+import ru.yandex.practicum.filmorate.storage.snapshot.SnapshotWriter;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLog;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLogFactory;
 
-import java.time.LocalDate;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @Component
-public class InMemoryFilmStorage implements FilmStorage {
-
-    private static final LocalDate BEGINNING_OF_THE_DATE = LocalDate.of(1895, 12, 28);
+@Profile("!jdbc")
+public class InMemoryFilmStorage implements FilmStorage, SnapshotSource, MeterBinder {
 
     private static Logger log = LoggerFactory.getLogger(InMemoryFilmStorage.class);
 
-    private Map<Long, Film> films = new HashMap<>();
+    private final Map<Long, Film> films = new ConcurrentHashMap<>();
+
+    private final NavigableSet<Long> filmIds = new ConcurrentSkipListSet<>();
+
+    private final IdGenerator idGenerator = new IdGenerator();
+
+    private final PopularityIndex popularityIndex = new PopularityIndex();
+
+    private final StripedLikeCounter likeCounter = new StripedLikeCounter();
+
+    private final ReadWriteLock mutationGate = new ReentrantReadWriteLock();
+
+    private final WriteAheadLog wal;
+
+    private final SnapshotStore snapshotStore;
+
+    private final ObjectMapper objectMapper;
+
+    private final DomainEventBus eventBus;
+
+    private volatile Timer foldTimer;
+
+    public InMemoryFilmStorage(WriteAheadLogFactory walFactory, SnapshotStore snapshotStore,
+                               ObjectMapper objectMapper, DomainEventBus eventBus) {
+        this.wal = walFactory.open("films");
+        this.snapshotStore = snapshotStore;
+        this.objectMapper = objectMapper;
+        this.eventBus = eventBus;
+    }
+
+    @PostConstruct
+    public void recover() {
+        Path snapshotFile = snapshotStore.file("films");
+        if (snapshotStore.isEnabled() && Files.exists(snapshotFile)) {
+            loadSnapshot(snapshotFile);
+        }
+        wal.replay(this::applyRecord);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.fold-interval-ms:100}")
+    public void foldLikes() {
+        Map<Long, Long> deltas = likeCounter.drainAll();
+        if (deltas.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+            Film film = films.get(delta.getKey());
+            if (film != null) {
+                applyDelta(film, delta.getValue());
+            }
+        }
+        Timer timer = foldTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        foldTimer = Timer.builder("filmorate.popularity.fold")
+                .description("Время переноса накопленных лайков в рейтинг популярности")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Override
+    public void snapshot() {
+        long sealedSegment;
+        long lastId;
+        List<LikesImage> images = new ArrayList<>(films.size());
+        mutationGate.writeLock().lock();
+        try {
+            sealedSegment = wal.roll();
+            lastId = idGenerator.lastId();
+            foldLikes();
+            for (Film film : films.values()) {
+                images.add(new LikesImage(film, film.getLikes(), film.getUserLikes().snapshot()));
+            }
+        } finally {
+            mutationGate.writeLock().unlock();
+        }
+
+        long written = 0;
+        try (SnapshotWriter writer = new SnapshotWriter(snapshotStore.file("films"))) {
+            writer.writeLong(lastId);
+            for (LikesImage image : images) {
+                Film film = image.film();
+                writer.writeBoolean(true);
+                writer.writeLong(film.getId());
+                writer.writeString(film.getName());
+                writer.writeString(film.getDescription());
+                writer.writeDate(film.getReleaseDate());
+                writer.writeNullableLong(film.getDuration());
+                writer.writeInt(image.likes());
+                writer.writeLongs(image.userLikes().toLongArray());
+                written++;
+            }
+            writer.writeBoolean(false);
+            writer.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить снимок фильмов", e);
+        }
+        wal.deleteSegmentsUpTo(sealedSegment);
+        log.info("Снимок фильмов сохранён, фильмов: {}", written);
+    }
+
+    @PreDestroy
+    public void close() {
+        wal.close();
+    }
 
     @Override
     public Film create(Film film) {
-        validationForFilms(film);
-        film.setId(generationId());
-        film.setUserLikes(new HashSet<>());
+        FilmValidator.validate(film);
+        mutationGate.readLock().lock();
+        try {
+            film.setId(idGenerator.nextId());
+            film.setUserLikes(new LongHashSet());
 
-        films.put(film.getId(), film);
+            journal(WalRecord.CREATE, film.getId(), film);
+            films.put(film.getId(), film);
+            filmIds.add(film.getId());
+            popularityIndex.put(film.getId(), film.getLikes());
+        } finally {
+            mutationGate.readLock().unlock();
+        }
+        eventBus.publish(new DomainEvent.FilmCreated(film.getId()));
         log.info("Фильм создан {} и добавлен в хранилище {}", film, film.getId());
 
         return film;
     }
 
+    @Override
+    public List<ImportResult> createAll(List<Film> newFilms) {
+        ImportResult[] results = FilmValidator.validateAll(newFilms);
+        int accepted = 0;
+        for (ImportResult result : results) {
+            if (result == null) {
+                accepted++;
+            }
+        }
+
+        mutationGate.readLock().lock();
+        try {
+            long nextId = idGenerator.nextBlock(accepted);
+            for (int index = 0; index < results.length; index++) {
+                if (results[index] != null) {
+                    continue;
+                }
+                Film film = newFilms.get(index);
+                film.setId(nextId++);
+                film.setUserLikes(new LongHashSet());
+
+                journal(WalRecord.CREATE, film.getId(), film);
+                films.put(film.getId(), film);
+                filmIds.add(film.getId());
+                popularityIndex.put(film.getId(), film.getLikes());
+                results[index] = ImportResult.builder().index(index).id(film.getId()).build();
+            }
+        } finally {
+            mutationGate.readLock().unlock();
+        }
+        for (ImportResult result : results) {
+            if (result.getError() == null) {
+                eventBus.publish(new DomainEvent.FilmCreated(result.getId()));
+            }
+        }
+        log.info("Импортировано фильмов: {} из {}", accepted, newFilms.size());
+
+        return Arrays.asList(results);
+    }
+
     @Override
     public Film update(Film newFilm) {
         validationUpdate(newFilm);
-        validationUpdate(newFilm);
+        if (newFilm.getUserLikes() == null) {
+            newFilm.setUserLikes(new LongHashSet());
+        }
 
-        films.put(newFilm.getId(), newFilm);
+        mutationGate.readLock().lock();
+        try {
+            if (!films.containsKey(newFilm.getId())) {
+                log.warn(" Фильм не найден с Id {}", newFilm.getId());
+                throw new NotFoundException("Фильм не найден");
+            }
+            long pendingLikes = likeCounter.drain(newFilm.getId());
+            newFilm.setLikes(newFilm.getLikes() + (int) pendingLikes);
+            try {
+                journal(WalRecord.UPDATE, newFilm.getId(), newFilm);
+            } catch (RuntimeException e) {
+                newFilm.setLikes(newFilm.getLikes() - (int) pendingLikes);
+                likeCounter.add(newFilm.getId(), (int) pendingLikes);
+                throw e;
+            }
+            if (films.replace(newFilm.getId(), newFilm) == null) {
+                log.warn(" Фильм не найден с Id {}", newFilm.getId());
+                throw new NotFoundException("Фильм не найден");
+            }
+            popularityIndex.put(newFilm.getId(), newFilm.getLikes());
+        } finally {
+            mutationGate.readLock().unlock();
+        }
+        eventBus.publish(new DomainEvent.FilmUpdated(newFilm.getId()));
 
         log.info("Фильм обновлён с Id {}", newFilm.getId());
         return newFilm;
     }
 
+    @Override
+    public int addLike(Long filmId, Long userId) {
+        Film film = getFilm(filmId);
+        mutationGate.readLock().lock();
+        try {
+            if (!film.getUserLikes().addLong(userId)) {
+                log.warn("Пользователь {} уже поставил лайк фильму {}", userId, filmId);
+                throw new ValidationException("Пользователь может поставить только один раз лайк фильму");
+            }
+            journalLike(WalRecord.LIKE, film, userId);
+            likeCounter.add(filmId, 1);
+        } finally {
+            mutationGate.readLock().unlock();
+        }
+        eventBus.publish(new DomainEvent.LikeAdded(filmId, userId));
+        return film.getLikes() + (int) likeCounter.pending(filmId);
+    }
+
+    @Override
+    public int removeLike(Long filmId, Long userId) {
+        Film film = getFilm(filmId);
+        mutationGate.readLock().lock();
+        try {
+            if (!film.getUserLikes().removeLong(userId)) {
+                log.error("Пользователь с ID {}, который удаляет лайк не существует", userId);
+                throw new NotFoundException("Пользователь с ID " + userId +
+                        " ,котоырй хочет поставить like не существует");
+            }
+            journalLike(WalRecord.UNLIKE, film, userId);
+            likeCounter.add(filmId, -1);
+        } finally {
+            mutationGate.readLock().unlock();
+        }
+        eventBus.publish(new DomainEvent.LikeRemoved(filmId, userId));
+        return film.getLikes() + (int) likeCounter.pending(filmId);
+    }
+
+    @Override
+    public List<ImportResult> applyLikes(List<Like> likes) {
+        List<ImportResult> results = new ArrayList<>(likes.size());
+        List<DomainEvent> events = new ArrayList<>(likes.size());
+        mutationGate.readLock().lock();
+        try {
+            for (int index = 0; index < likes.size(); index++) {
+                Like like = likes.get(index);
+                ImportResult.ImportResultBuilder result = ImportResult.builder().index(index).id(like.getFilmId());
+                Film film = films.get(like.getFilmId());
+                try {
+                    if (film == null) {
+                        result.error("Фильм с ID " + like.getFilmId() + " не найден");
+                    } else if (like.getAction() == BatchAction.REMOVE) {
+                        if (film.getUserLikes().removeLong(like.getUserId())) {
+                            journalLike(WalRecord.UNLIKE, film, like.getUserId());
+                            likeCounter.add(film.getId(), -1);
+                            events.add(new DomainEvent.LikeRemoved(film.getId(), like.getUserId()));
+                        } else {
+                            result.error("Пользователь с ID " + like.getUserId() +
+                                    " ,котоырй хочет поставить like не существует");
+                        }
+                    } else if (film.getUserLikes().addLong(like.getUserId())) {
+                        journalLike(WalRecord.LIKE, film, like.getUserId());
+                        likeCounter.add(film.getId(), 1);
+                        events.add(new DomainEvent.LikeAdded(film.getId(), like.getUserId()));
+                    } else {
+                        result.error("Пользователь может поставить только один раз лайк фильму");
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Не удалось записать лайк {} в журнал", like, e);
+                    result.error("Не удалось сохранить лайк: " + e.getMessage());
+                }
+                results.add(result.build());
+            }
+        } finally {
+            mutationGate.readLock().unlock();
+        }
+        for (DomainEvent event : events) {
+            eventBus.publish(event);
+        }
+        return results;
+    }
+
     @Override
     public List<Film> getAllFilms() {
-        return new ArrayList<>(films.values());
+        return findAllByIds(filmIds);
+    }
+
+    @Override
+    public List<Film> getAllFilms(Long afterId, int limit) {
+        NavigableSet<Long> page = afterId == null ? filmIds : filmIds.tailSet(afterId, false);
+        List<Film> pageFilms = new ArrayList<>(Math.min(limit, 1024));
+        for (Long filmId : page) {
+            if (pageFilms.size() >= limit) {
+                break;
+            }
+            Film film = films.get(filmId);
+            if (film != null) {
+                pageFilms.add(foldPendingLikes(film));
+            }
+        }
+        return pageFilms;
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        foldLikes();
+        return findAllByIds(popularityIndex.top(count));
     }
 
     @Override
     public void clearFilm() {
-        films.clear();
+        mutationGate.readLock().lock();
+        try {
+            journal(WalRecord.CLEAR, 0, null);
+            films.clear();
+            filmIds.clear();
+            popularityIndex.clear();
+            likeCounter.clear();
+            idGenerator.reset();
+        } finally {
+            mutationGate.readLock().unlock();
+        }
+        eventBus.publish(new DomainEvent.FilmsCleared());
+    }
+
+    @Override
+    public long count() {
+        return films.size();
     }
 
     @Override
     public Film findById(Long filmId) {
-        Film film = films.get(filmId);
+        return foldPendingLikes(getFilm(filmId));
+    }
 
-        if (film == null) {
-            throw new NotFoundException("Фильм с ID " + filmId + " не найден");
+    @Override
+    public List<Film> findAllByIds(Collection<Long> filmIds) {
+        List<Film> foundFilms = new ArrayList<>(filmIds.size());
+        for (Long filmId : filmIds) {
+            Film film = films.get(filmId);
+            if (film != null) {
+                foundFilms.add(foldPendingLikes(film));
+            }
         }
-        return film;
+        return foundFilms;
     }
 
     @Override
     public void deleteFilmById(Long filmId) {
-        Film removeFilm = films.get(filmId);
-        if (removeFilm != null) {
-            films.remove(filmId);
+        if (films.containsKey(filmId)) {
+            mutationGate.readLock().lock();
+            try {
+                journal(WalRecord.DELETE, filmId, null);
+                films.remove(filmId);
+                filmIds.remove(filmId);
+                likeCounter.remove(filmId);
+                popularityIndex.remove(filmId);
+            } finally {
+                mutationGate.readLock().unlock();
+            }
+            eventBus.publish(new DomainEvent.FilmDeleted(filmId));
             log.info("Фильм с ID {} успешно удалён", filmId);
         } else {
             log.error("Фильм с ID {} для удаления не найден", filmId);
@@ -74,25 +423,6 @@ public class InMemoryFilmStorage implements FilmStorage {
         }
     }
 
-    private void validationForFilms(Film film) {
-        if (film.getName() == null || film.getName().isEmpty()) {
-            log.warn("Наименование фильма {}", film.getName());
-            throw new ValidationException("Имя не должно быть пустым");
-        }
-        if (film.getDescription().length() >= 200) {
-            log.warn("Описание фильма {}", film.getDescription());
-            throw new ValidationException("Максимальная длина описания — 200 символов");
-        }
-        if (film.getReleaseDate().isBefore(BEGINNING_OF_THE_DATE)) {
-            log.warn("Дата релиза фильма {}", film.getReleaseDate());
-            throw new ValidationException("Дата релиза — не раньше 28 декабря 1895 года");
-        }
-        if (film.getDuration() == null || film.getDuration() <= 0) {
-            log.warn("Продолжительность фильма {}", film.getDuration());
-            throw new ValidationException("Продолжительность фильма должна быть положительным числом");
-        }
-    }
-
     private void validationUpdate(Film newFilm) {
         if (newFilm.getId() == null) {
             log.debug("Id не указан для обновления");
@@ -104,12 +434,153 @@ public class InMemoryFilmStorage implements FilmStorage {
         }
     }
 
-    private long generationId() {
-        long currentMaxId = films.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+    private Film getFilm(Long filmId) {
+        Film film = films.get(filmId);
+
+        if (film == null) {
+            throw new NotFoundException("Фильм с ID " + filmId + " не найден");
+        }
+        return film;
+    }
+
+    private Film foldPendingLikes(Film film) {
+        long delta = likeCounter.drain(film.getId());
+        if (delta != 0) {
+            applyDelta(film, delta);
+        }
+        return film;
+    }
+
+    private void applyDelta(Film film, long delta) {
+        synchronized (film) {
+            film.setLikes(film.getLikes() + (int) delta);
+            popularityIndex.put(film.getId(), film.getLikes());
+        }
+    }
+
+    private void applyLike(Film film, long userId) {
+        if (film.getUserLikes().addLong(userId)) {
+            film.setLikes(film.getLikes() + 1);
+            popularityIndex.put(film.getId(), film.getLikes());
+        }
+    }
+
+    private void applyUnlike(Film film, long userId) {
+        if (film.getUserLikes().removeLong(userId)) {
+            film.setLikes(film.getLikes() - 1);
+            popularityIndex.put(film.getId(), film.getLikes());
+        }
+    }
+
+    private void journal(String operation, long filmId, Film film) {
+        if (!wal.isEnabled()) {
+            return;
+        }
+        try {
+            wal.append(operation, filmId, film == null ? null : objectMapper.writeValueAsString(film));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Не удалось сериализовать фильм с ID " + filmId, e);
+        }
+    }
+
+    private void journalLike(String operation, Film film, long userId) {
+        try {
+            journal(operation, film.getId(), userId);
+        } catch (RuntimeException e) {
+            if (WalRecord.LIKE.equals(operation)) {
+                film.getUserLikes().removeLong(userId);
+            } else {
+                film.getUserLikes().addLong(userId);
+            }
+            throw e;
+        }
+    }
+
+    private void journal(String operation, long filmId, long userId) {
+        if (wal.isEnabled()) {
+            wal.append(operation, filmId, String.valueOf(userId));
+        }
+    }
+
+    private void applyRecord(WalRecord record) {
+        switch (record.operation()) {
+            case WalRecord.CREATE -> restore(record);
+            case WalRecord.UPDATE -> {
+                if (films.containsKey(record.id())) {
+                    restore(record);
+                }
+            }
+            case WalRecord.LIKE -> {
+                Film film = films.get(record.id());
+                if (film != null) {
+                    applyLike(film, Long.parseLong(record.payload()));
+                }
+            }
+            case WalRecord.UNLIKE -> {
+                Film film = films.get(record.id());
+                if (film != null) {
+                    applyUnlike(film, Long.parseLong(record.payload()));
+                }
+            }
+            case WalRecord.DELETE -> {
+                films.remove(record.id());
+                filmIds.remove(record.id());
+                popularityIndex.remove(record.id());
+            }
+            case WalRecord.CLEAR -> {
+                films.clear();
+                filmIds.clear();
+                popularityIndex.clear();
+                idGenerator.reset();
+            }
+            default -> throw new IllegalStateException("Неизвестная операция журнала: " + record.operation());
+        }
+    }
+
+    private void loadSnapshot(Path snapshotFile) {
+        long loaded = 0;
+        try (SnapshotReader reader = new SnapshotReader(snapshotFile)) {
+            idGenerator.advanceTo(reader.readLong());
+            while (reader.readBoolean()) {
+                Film film = Film.builder()
+                        .id(reader.readLong())
+                        .name(reader.readString())
+                        .description(reader.readString())
+                        .releaseDate(reader.readDate())
+                        .duration(reader.readNullableLong())
+                        .likes(reader.readInt())
+                        .build();
+                for (long userId : reader.readLongs()) {
+                    film.getUserLikes().addLong(userId);
+                }
+                films.put(film.getId(), film);
+                filmIds.add(film.getId());
+                popularityIndex.put(film.getId(), film.getLikes());
+                idGenerator.advanceTo(film.getId());
+                loaded++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось загрузить снимок фильмов " + snapshotFile, e);
+        }
+        log.info("Из снимка {} загружено фильмов: {}", snapshotFile, loaded);
+    }
+
+    private void restore(WalRecord record) {
+        Film film;
+        try {
+            film = objectMapper.readValue(record.payload(), Film.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Не удалось восстановить фильм с ID " + record.id(), e);
+        }
+        if (film.getUserLikes() == null) {
+            film.setUserLikes(new LongHashSet());
+        }
+        films.put(film.getId(), film);
+        filmIds.add(film.getId());
+        popularityIndex.put(film.getId(), film.getLikes());
+        idGenerator.advanceTo(film.getId());
+    }
+
+    private record LikesImage(Film film, int likes, LongHashSet userLikes) {
     }
 }
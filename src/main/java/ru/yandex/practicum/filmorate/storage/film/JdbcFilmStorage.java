@@ -0,0 +1,422 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.event.DomainEvent;
+import ru.yandex.practicum.filmorate.event.DomainEventBus;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
+
+import java.time.LocalDate;
+import java.util.*;
+
+@Component
+@Profile("jdbc")
+public class JdbcFilmStorage implements FilmStorage {
+
+    private static final int IN_CLAUSE_BATCH_SIZE = 1000;
+
+    private static final String SELECT_FILMS = "SELECT id, name, description, release_date, duration, likes FROM films";
+
+    private static final String INSERT_FILM = "INSERT INTO films (name, description, release_date, duration, likes) " +
+            "VALUES (:name, :description, :releaseDate, :duration, :likes)";
+
+    private static final RowMapper<Film> FILM_MAPPER = (rs, rowNum) -> Film.builder()
+            .id(rs.getLong("id"))
+            .name(rs.getString("name"))
+            .description(rs.getString("description"))
+            .releaseDate(rs.getObject("release_date", LocalDate.class))
+            .duration(rs.getObject("duration", Long.class))
+            .likes(rs.getInt("likes"))
+            .build();
+
+    private static Logger log = LoggerFactory.getLogger(JdbcFilmStorage.class);
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final DomainEventBus eventBus;
+
+    public JdbcFilmStorage(NamedParameterJdbcTemplate jdbc, DomainEventBus eventBus) {
+        this.jdbc = jdbc;
+        this.eventBus = eventBus;
+    }
+
+    @Override
+    @Transactional
+    public Film create(Film film) {
+        FilmValidator.validate(film);
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.update(INSERT_FILM, filmParameters(film), keyHolder, new String[]{"id"});
+        film.setId(keyHolder.getKeyAs(Long.class));
+        film.setUserLikes(new LongHashSet());
+        eventBus.publish(new DomainEvent.FilmCreated(film.getId()));
+
+        log.info("Фильм создан {} и добавлен в хранилище {}", film, film.getId());
+        return film;
+    }
+
+    @Override
+    @Transactional
+    public List<ImportResult> createAll(List<Film> newFilms) {
+        ImportResult[] results = FilmValidator.validateAll(newFilms);
+        List<Integer> accepted = new ArrayList<>(newFilms.size());
+        for (int index = 0; index < results.length; index++) {
+            if (results[index] == null) {
+                accepted.add(index);
+            }
+        }
+
+        for (List<Integer> chunk : chunks(accepted)) {
+            SqlParameterSource[] batch = new SqlParameterSource[chunk.size()];
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] = filmParameters(newFilms.get(chunk.get(i)));
+            }
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbc.batchUpdate(INSERT_FILM, batch, keyHolder, new String[]{"id"});
+
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < batch.length; i++) {
+                int index = chunk.get(i);
+                Film film = newFilms.get(index);
+                film.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+                film.setUserLikes(new LongHashSet());
+                results[index] = ImportResult.builder().index(index).id(film.getId()).build();
+                eventBus.publish(new DomainEvent.FilmCreated(film.getId()));
+            }
+        }
+        log.info("Импортировано фильмов: {} из {}", accepted.size(), newFilms.size());
+
+        return Arrays.asList(results);
+    }
+
+    @Override
+    @Transactional
+    public Film update(Film newFilm) {
+        FilmValidator.validate(newFilm);
+        if (newFilm.getId() == null) {
+            log.debug("Id не указан для обновления");
+            throw new ValidationException("Id должен быть указан");
+        }
+        if (newFilm.getUserLikes() == null) {
+            newFilm.setUserLikes(new LongHashSet());
+        }
+
+        int updated = jdbc.update("UPDATE films SET name = :name, description = :description, " +
+                "release_date = :releaseDate, duration = :duration, likes = :likes WHERE id = :id",
+                filmParameters(newFilm));
+        if (updated == 0) {
+            log.warn(" Фильм не найден с Id {}", newFilm.getId());
+            throw new NotFoundException("Фильм не найден");
+        }
+        syncLikes(newFilm);
+        eventBus.publish(new DomainEvent.FilmUpdated(newFilm.getId()));
+
+        log.info("Фильм обновлён с Id {}", newFilm.getId());
+        return newFilm;
+    }
+
+    @Override
+    @Transactional
+    public int addLike(Long filmId, Long userId) {
+        Map<String, Long> parameters = Map.of("filmId", filmId, "userId", userId);
+        if (jdbc.update("UPDATE films SET likes = likes + 1 WHERE id = :filmId", parameters) == 0) {
+            throw new NotFoundException("Фильм с ID " + filmId + " не найден");
+        }
+        try {
+            jdbc.update("INSERT INTO film_likes (film_id, user_id) VALUES (:filmId, :userId)", parameters);
+        } catch (DuplicateKeyException e) {
+            log.warn("Пользователь {} уже поставил лайк фильму {}", userId, filmId);
+            throw new ValidationException("Пользователь может поставить только один раз лайк фильму");
+        }
+        eventBus.publish(new DomainEvent.LikeAdded(filmId, userId));
+        return jdbc.queryForObject("SELECT likes FROM films WHERE id = :filmId", parameters, Integer.class);
+    }
+
+    @Override
+    @Transactional
+    public int removeLike(Long filmId, Long userId) {
+        Map<String, Long> parameters = Map.of("filmId", filmId, "userId", userId);
+        if (jdbc.update("DELETE FROM film_likes WHERE film_id = :filmId AND user_id = :userId", parameters) == 0) {
+            findById(filmId);
+            log.error("Пользователь с ID {}, который удаляет лайк не существует", userId);
+            throw new NotFoundException("Пользователь с ID " + userId + " ,котоырй хочет поставить like не существует");
+        }
+        jdbc.update("UPDATE films SET likes = likes - 1 WHERE id = :filmId", parameters);
+        eventBus.publish(new DomainEvent.LikeRemoved(filmId, userId));
+        return jdbc.queryForObject("SELECT likes FROM films WHERE id = :filmId", parameters, Integer.class);
+    }
+
+    @Override
+    @Transactional
+    public List<ImportResult> applyLikes(List<Like> likes) {
+        Set<Long> filmIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        List<Object[]> pairs = new ArrayList<>(likes.size());
+        for (Like like : likes) {
+            filmIds.add(like.getFilmId());
+            userIds.add(like.getUserId());
+            pairs.add(new Object[]{like.getFilmId(), like.getUserId()});
+        }
+        Set<Long> existingFilms = new HashSet<>();
+        for (List<Long> chunk : chunks(filmIds)) {
+            existingFilms.addAll(jdbc.queryForList("SELECT id FROM films WHERE id IN (:ids)", Map.of("ids", chunk),
+                    Long.class));
+        }
+        Set<Long> existingUsers = new HashSet<>();
+        for (List<Long> chunk : chunks(userIds)) {
+            existingUsers.addAll(jdbc.queryForList("SELECT id FROM users WHERE id IN (:ids)", Map.of("ids", chunk),
+                    Long.class));
+        }
+        Set<Like> storedLikes = new HashSet<>();
+        for (List<Object[]> chunk : chunks(pairs)) {
+            jdbc.query("SELECT film_id, user_id FROM film_likes WHERE (film_id, user_id) IN (:pairs)",
+                    Map.of("pairs", chunk), (RowCallbackHandler) rs ->
+                            storedLikes.add(likeKey(rs.getLong("film_id"), rs.getLong("user_id"))));
+        }
+
+        List<ImportResult> results = new ArrayList<>(likes.size());
+        Set<Like> currentLikes = new HashSet<>(storedLikes);
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (int index = 0; index < likes.size(); index++) {
+            Like like = likes.get(index);
+            Like key = likeKey(like.getFilmId(), like.getUserId());
+            ImportResult.ImportResultBuilder result = ImportResult.builder().index(index).id(like.getFilmId());
+            if (!existingFilms.contains(like.getFilmId())) {
+                result.error("Фильм с ID " + like.getFilmId() + " не найден");
+            } else if (like.getAction() == BatchAction.REMOVE) {
+                if (currentLikes.remove(key)) {
+                    deltas.merge(like.getFilmId(), -1, Integer::sum);
+                    eventBus.publish(new DomainEvent.LikeRemoved(like.getFilmId(), like.getUserId()));
+                } else {
+                    result.error("Пользователь с ID " + like.getUserId() +
+                            " ,котоырй хочет поставить like не существует");
+                }
+            } else if (!existingUsers.contains(like.getUserId())) {
+                result.error("Пользователь с ID " + like.getUserId() + " ,котоырй хочет поставить like не существует");
+            } else if (currentLikes.add(key)) {
+                deltas.merge(like.getFilmId(), 1, Integer::sum);
+                eventBus.publish(new DomainEvent.LikeAdded(like.getFilmId(), like.getUserId()));
+            } else {
+                result.error("Пользователь может поставить только один раз лайк фильму");
+            }
+            results.add(result.build());
+        }
+
+        SqlParameterSource[] inserts = likeParameters(currentLikes, storedLikes);
+        if (inserts.length > 0) {
+            jdbc.batchUpdate("INSERT INTO film_likes (film_id, user_id) VALUES (:filmId, :userId)", inserts);
+        }
+        SqlParameterSource[] deletes = likeParameters(storedLikes, currentLikes);
+        if (deletes.length > 0) {
+            jdbc.batchUpdate("DELETE FROM film_likes WHERE film_id = :filmId AND user_id = :userId", deletes);
+        }
+        SqlParameterSource[] updates = deltas.entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("filmId", entry.getKey())
+                        .addValue("delta", entry.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        if (updates.length > 0) {
+            jdbc.batchUpdate("UPDATE films SET likes = likes + :delta WHERE id = :filmId", updates);
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Film> getAllFilms() {
+        List<Film> films = jdbc.query(SELECT_FILMS + " ORDER BY id", FILM_MAPPER);
+        Map<Long, Film> filmsById = indexById(films);
+        jdbc.query("SELECT film_id, user_id FROM film_likes", Map.of(),
+                (RowCallbackHandler) rs -> addLike(filmsById, rs.getLong("film_id"), rs.getLong("user_id")));
+        return films;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Film> getAllFilms(Long afterId, int limit) {
+        List<Film> films = jdbc.query(SELECT_FILMS + " WHERE id > :afterId ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("afterId", afterId == null ? 0L : afterId)
+                        .addValue("limit", limit),
+                FILM_MAPPER);
+        loadLikes(films);
+        return films;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Film> getPopularFilms(int count) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        List<Film> films = jdbc.query(SELECT_FILMS + " ORDER BY likes DESC, id LIMIT :count",
+                Map.of("count", count), FILM_MAPPER);
+        loadLikes(films);
+        return films;
+    }
+
+    @Override
+    @Transactional
+    public void clearFilm() {
+        jdbc.getJdbcOperations().update("DELETE FROM films");
+        jdbc.getJdbcOperations().execute("ALTER TABLE films ALTER COLUMN id RESTART WITH 1");
+        eventBus.publish(new DomainEvent.FilmsCleared());
+    }
+
+    @Override
+    public long count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM films", Map.of(), Long.class);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Film findById(Long filmId) {
+        List<Film> films = jdbc.query(SELECT_FILMS + " WHERE id = :id", Map.of("id", filmId), FILM_MAPPER);
+        if (films.isEmpty()) {
+            throw new NotFoundException("Фильм с ID " + filmId + " не найден");
+        }
+        loadLikes(films);
+        return films.get(0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Film> findAllByIds(Collection<Long> filmIds) {
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (List<Long> chunk : chunks(filmIds)) {
+            for (Film film : jdbc.query(SELECT_FILMS + " WHERE id IN (:ids)", Map.of("ids", chunk), FILM_MAPPER)) {
+                filmsById.put(film.getId(), film);
+            }
+        }
+
+        List<Film> foundFilms = new ArrayList<>(filmsById.size());
+        for (Long filmId : filmIds) {
+            Film film = filmsById.get(filmId);
+            if (film != null) {
+                foundFilms.add(film);
+            }
+        }
+        loadLikes(foundFilms);
+        return foundFilms;
+    }
+
+    @Override
+    @Transactional
+    public void deleteFilmById(Long filmId) {
+        if (jdbc.update("DELETE FROM films WHERE id = :id", Map.of("id", filmId)) > 0) {
+            eventBus.publish(new DomainEvent.FilmDeleted(filmId));
+            log.info("Фильм с ID {} успешно удалён", filmId);
+        } else {
+            log.error("Фильм с ID {} для удаления не найден", filmId);
+            throw new NotFoundException("Пользователь для удаления с ID " + filmId + " не найден");
+        }
+    }
+
+    private void loadLikes(List<Film> films) {
+        Map<Long, Film> filmsById = indexById(films);
+        for (List<Long> chunk : chunks(filmsById.keySet())) {
+            jdbc.query("SELECT film_id, user_id FROM film_likes WHERE film_id IN (:ids)", Map.of("ids", chunk),
+                    (RowCallbackHandler) rs -> addLike(filmsById, rs.getLong("film_id"), rs.getLong("user_id")));
+        }
+    }
+
+    private void syncLikes(Film film) {
+        Set<Long> storedLikes = new HashSet<>(jdbc.queryForList(
+                "SELECT user_id FROM film_likes WHERE film_id = :filmId", Map.of("filmId", film.getId()), Long.class));
+
+        List<Long> addedLikes = new ArrayList<>();
+        for (long userId : film.getUserLikes().toLongArray()) {
+            if (!storedLikes.remove(userId)) {
+                addedLikes.add(userId);
+            }
+        }
+        batchLikes("INSERT INTO film_likes (film_id, user_id) VALUES (:filmId, :userId)", film.getId(), addedLikes);
+        batchLikes("DELETE FROM film_likes WHERE film_id = :filmId AND user_id = :userId", film.getId(), storedLikes);
+    }
+
+    private void batchLikes(String sql, long filmId, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[userIds.size()];
+        int index = 0;
+        for (Long userId : userIds) {
+            batch[index++] = new MapSqlParameterSource()
+                    .addValue("filmId", filmId)
+                    .addValue("userId", userId);
+        }
+        jdbc.batchUpdate(sql, batch);
+    }
+
+    private static Like likeKey(long filmId, long userId) {
+        return Like.builder().filmId(filmId).userId(userId).build();
+    }
+
+    private static SqlParameterSource[] likeParameters(Set<Like> likes, Set<Like> excluded) {
+        return likes.stream()
+                .filter(like -> !excluded.contains(like))
+                .map(like -> new MapSqlParameterSource()
+                        .addValue("filmId", like.getFilmId())
+                        .addValue("userId", like.getUserId()))
+                .toArray(SqlParameterSource[]::new);
+    }
+
+    private static MapSqlParameterSource filmParameters(Film film) {
+        return new MapSqlParameterSource()
+                .addValue("id", film.getId())
+                .addValue("name", film.getName())
+                .addValue("description", film.getDescription())
+                .addValue("releaseDate", film.getReleaseDate())
+                .addValue("duration", film.getDuration())
+                .addValue("likes", film.getLikes());
+    }
+
+    private static Map<Long, Film> indexById(List<Film> films) {
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (Film film : films) {
+            film.setUserLikes(new LongHashSet());
+            filmsById.put(film.getId(), film);
+        }
+        return filmsById;
+    }
+
+    private static void addLike(Map<Long, Film> filmsById, long filmId, long userId) {
+        Film film = filmsById.get(filmId);
+        if (film != null) {
+            film.getUserLikes().addLong(userId);
+        }
+    }
+
+    private static <T> List<List<T>> chunks(Collection<T> ids) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(Math.min(ids.size(), IN_CLAUSE_BATCH_SIZE));
+        for (T id : ids) {
+            chunk.add(id);
+            if (chunk.size() == IN_CLAUSE_BATCH_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(IN_CLAUSE_BATCH_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+class PopularityIndex {
+
+    private static final Comparator<Rank> MOST_LIKED_FIRST = Comparator.comparingInt(Rank::likes).reversed()
+            .thenComparingLong(Rank::filmId);
+
+    private final NavigableSet<Rank> ranking = new TreeSet<>(MOST_LIKED_FIRST);
+    private final Map<Long, Rank> ranksByFilm = new HashMap<>();
+
+    synchronized void put(long filmId, int likes) {
+        Rank rank = new Rank(filmId, likes);
+        Rank previous = ranksByFilm.put(filmId, rank);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        ranking.add(rank);
+    }
+
+    synchronized void remove(long filmId) {
+        Rank previous = ranksByFilm.remove(filmId);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+    }
+
+    synchronized void clear() {
+        ranking.clear();
+        ranksByFilm.clear();
+    }
+
+    synchronized List<Long> top(int count) {
+        List<Long> filmIds = new ArrayList<>(Math.max(0, Math.min(count, ranking.size())));
+        Iterator<Rank> iterator = ranking.iterator();
+        while (filmIds.size() < count && iterator.hasNext()) {
+            filmIds.add(iterator.next().filmId());
+        }
+        return filmIds;
+    }
+
+    private record Rank(long filmId, int likes) {
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+final class StripedLikeCounter {
+
+    private final Map<Long, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    void add(long filmId, int delta) {
+        LongAdder counter = counters.get(filmId);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(filmId, id -> new LongAdder());
+        }
+        counter.add(delta);
+        if (!dirty.contains(filmId)) {
+            dirty.add(filmId);
+        }
+    }
+
+    long pending(long filmId) {
+        LongAdder counter = counters.get(filmId);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    long drain(long filmId) {
+        LongAdder counter = counters.get(filmId);
+        if (counter == null || counter.sum() == 0) {
+            return 0;
+        }
+        return counter.sumThenReset();
+    }
+
+    Map<Long, Long> drainAll() {
+        Map<Long, Long> totals = new HashMap<>();
+        for (Iterator<Long> iterator = dirty.iterator(); iterator.hasNext(); ) {
+            Long filmId = iterator.next();
+            iterator.remove();
+            long delta = drain(filmId);
+            if (delta != 0) {
+                totals.put(filmId, delta);
+            }
+        }
+        return totals;
+    }
+
+    void remove(long filmId) {
+        counters.remove(filmId);
+        dirty.remove(filmId);
+    }
+
+    void clear() {
+        counters.clear();
+        dirty.clear();
+    }
+}
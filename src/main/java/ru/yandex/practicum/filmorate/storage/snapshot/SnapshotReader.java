@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.storage.snapshot;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+public class SnapshotReader implements Closeable {
+
+    private static final int WINDOW_SIZE = 64 << 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long size;
+    private long windowStart;
+    private MappedByteBuffer buffer;
+
+    public SnapshotReader(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.buffer = map(0, 0);
+
+        if (readInt() != SnapshotWriter.MAGIC) {
+            throw new IOException("Файл " + file + " не является снимком хранилища");
+        }
+        int version = readInt();
+        if (version != SnapshotWriter.FORMAT_VERSION) {
+            throw new IOException("Неподдерживаемая версия снимка " + version + " в файле " + file);
+        }
+    }
+
+    public boolean readBoolean() throws IOException {
+        ensure(1);
+        return buffer.get() != 0;
+    }
+
+    public int readInt() throws IOException {
+        ensure(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        ensure(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    public Long readNullableLong() throws IOException {
+        return readBoolean() ? readLong() : null;
+    }
+
+    public String readString() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        ensure(length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public LocalDate readDate() throws IOException {
+        long epochDay = readLong();
+        return epochDay == SnapshotWriter.NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    public long[] readLongs() throws IOException {
+        int length = readInt();
+        ensure((long) length * Long.BYTES);
+        long[] values = new long[length];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + length * Long.BYTES);
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void ensure(long bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        long position = windowStart + buffer.position();
+        if (size - position < bytes) {
+            throw new EOFException("Снимок " + file + " обрывается на позиции " + position);
+        }
+        buffer = map(position, bytes);
+    }
+
+    private MappedByteBuffer map(long position, long minimum) throws IOException {
+        long length = Math.min(size - position, Math.max(WINDOW_SIZE, minimum));
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Слишком большая запись в снимке " + file + " на позиции " + position);
+        }
+        windowStart = position;
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.storage.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SnapshotScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotScheduler.class);
+
+    private final SnapshotStore snapshotStore;
+    private final ObjectProvider<SnapshotSource> sources;
+
+    public SnapshotScheduler(SnapshotStore snapshotStore, ObjectProvider<SnapshotSource> sources) {
+        this.snapshotStore = snapshotStore;
+        this.sources = sources;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.snapshot.interval-ms:60000}",
+            initialDelayString = "${filmorate.snapshot.interval-ms:60000}")
+    public void snapshotAll() {
+        if (!snapshotStore.isEnabled()) {
+            return;
+        }
+        for (SnapshotSource source : sources) {
+            try {
+                source.snapshot();
+            } catch (RuntimeException e) {
+                log.error("Не удалось сохранить снимок {}", source.getClass().getSimpleName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package ru.yandex.practicum.filmorate.storage.snapshot;
+
+public interface SnapshotSource {
+    void snapshot();
+}
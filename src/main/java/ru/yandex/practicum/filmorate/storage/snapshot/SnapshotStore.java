@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.storage.snapshot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+@Component
+public class SnapshotStore {
+
+    private final boolean enabled;
+    private final Path directory;
+
+    public SnapshotStore(@Value("${filmorate.snapshot.enabled:false}") boolean enabled,
+                         @Value("${filmorate.snapshot.directory:data/snapshot}") String directory) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path file(String name) {
+        return directory.resolve(name + ".snapshot");
+    }
+}
@@ -0,0 +1,350 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.event.DomainEvent;
+import ru.yandex.practicum.filmorate.event.DomainEventBus;
+import ru.yandex.practicum.filmorate.event.DomainEventListener;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.cache.CacheStatistics;
+import ru.yandex.practicum.filmorate.storage.cache.WriteBehindCache;
+
+import java.util.*;
+
+@Component
+@Primary
+@Profile("jdbc")
+@ConditionalOnProperty(name = "filmorate.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingUserStorage implements UserStorage, DomainEventListener {
+
+    private static Logger log = LoggerFactory.getLogger(CachingUserStorage.class);
+
+    private final UserStorage delegate;
+    private final DomainEventBus eventBus;
+    private final WriteBehindCache<User, Friendship> cache;
+
+    public CachingUserStorage(JdbcUserStorage delegate, DomainEventBus eventBus,
+                              @Value("${filmorate.cache.max-size:10000}") int maxSize) {
+        this.delegate = delegate;
+        this.eventBus = eventBus;
+        this.cache = new WriteBehindCache<>("users", maxSize, User::getId);
+        eventBus.subscribe(this);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.cache.flush-interval-ms:100}")
+    public void flush() {
+        eventBus.publishAfter(() -> cache.flush(this::write, this::isPending));
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof DomainEvent.UserDeleted deleted) {
+                forgetUser(deleted.userId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    public CacheStatistics statistics() {
+        return cache.statistics();
+    }
+
+    @Override
+    public User create(User user) {
+        User created = delegate.create(user);
+        cache.put(created.getId(), created);
+        return created;
+    }
+
+    @Override
+    public List<ImportResult> createAll(List<User> newUsers) {
+        List<ImportResult> results = delegate.createAll(newUsers);
+        for (int index = 0; index < results.size(); index++) {
+            if (results.get(index).getError() == null) {
+                cache.put(results.get(index).getId(), newUsers.get(index));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public User update(User newUser) {
+        UserValidator.validate(newUser);
+        if (newUser.getId() == null) {
+            log.debug("Id не указан для обновления");
+            throw new ValidationException("Id должен быть указан");
+        }
+        try {
+            findById(newUser.getId());
+        } catch (NotFoundException e) {
+            log.warn("Id пользователя не найден {}", newUser.getId());
+            throw new NotFoundException("Пользователь с таким Id не найден");
+        }
+        if (newUser.getFriends() == null) {
+            newUser.setFriends(new LongHashSet());
+        }
+
+        cache.markDirty(newUser.getId(), newUser);
+        log.info("Пользователь обновлён с Id: {}", newUser.getId());
+        return newUser;
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        flush();
+        return delegate.getAllUsers();
+    }
+
+    @Override
+    public List<User> getAllUsers(Long afterId, int limit) {
+        flush();
+        return delegate.getAllUsers(afterId, limit);
+    }
+
+    @Override
+    public void clearUsers() {
+        cache.clear();
+        delegate.clearUsers();
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public User findById(Long userId) {
+        User user = cache.getIfPresent(userId);
+        if (user != null) {
+            return user;
+        }
+        return cache.putIfAbsent(userId, delegate.findById(userId));
+    }
+
+    @Override
+    public List<User> findAllByIds(Collection<Long> userIds) {
+        Map<Long, User> usersById = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long userId : userIds) {
+            User user = cache.getIfPresent(userId);
+            if (user == null) {
+                missingIds.add(userId);
+            } else {
+                usersById.put(userId, user);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            for (User user : delegate.findAllByIds(missingIds)) {
+                usersById.put(user.getId(), cache.putIfAbsent(user.getId(), user));
+            }
+        }
+
+        List<User> foundUsers = new ArrayList<>(usersById.size());
+        for (Long userId : userIds) {
+            User user = usersById.get(userId);
+            if (user != null) {
+                foundUsers.add(user);
+            }
+        }
+        return foundUsers;
+    }
+
+    @Override
+    public List<User> findMutualFriends(Long userId, Long otherId) {
+        flush();
+        return findAllByIds(delegate.findMutualFriends(userId, otherId).stream().map(User::getId).toList());
+    }
+
+    @Override
+    public boolean addFriend(Long userId, Long friendId) {
+        return addFriendship(findById(userId), findById(friendId));
+    }
+
+    @Override
+    public boolean removeFriend(Long userId, Long friendId) {
+        return removeFriendship(findById(userId), findById(friendId));
+    }
+
+    @Override
+    public List<ImportResult> applyFriendships(List<Friendship> friendships) {
+        Set<Long> userIds = new HashSet<>();
+        Map<List<Long>, List<Integer>> indexesByPair = new LinkedHashMap<>();
+        for (int index = 0; index < friendships.size(); index++) {
+            Friendship friendship = friendships.get(index);
+            userIds.add(friendship.getUserId());
+            userIds.add(friendship.getFriendId());
+            indexesByPair.computeIfAbsent(pairKey(friendship.getUserId(), friendship.getFriendId()),
+                    key -> new ArrayList<>()).add(index);
+        }
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : findAllByIds(userIds)) {
+            usersById.put(user.getId(), user);
+        }
+
+        ImportResult[] results = new ImportResult[friendships.size()];
+        for (Map.Entry<List<Long>, List<Integer>> entry : indexesByPair.entrySet()) {
+            User first = usersById.get(entry.getKey().get(0));
+            User second = usersById.get(entry.getKey().get(1));
+            if (first == null || second == null) {
+                for (int index : entry.getValue()) {
+                    Friendship friendship = friendships.get(index);
+                    results[index] = ImportResult.builder().index(index).id(friendship.getUserId())
+                            .error("Пользователь  с ID: " + friendship.getUserId() + " или друг с ID " +
+                                    friendship.getFriendId() + " не найдены")
+                            .build();
+                }
+                continue;
+            }
+            synchronized (first) {
+                synchronized (second) {
+                    Friendship netChange = null;
+                    for (int index : entry.getValue()) {
+                        Friendship friendship = friendships.get(index);
+                        ImportResult.ImportResultBuilder result = ImportResult.builder()
+                                .index(index)
+                                .id(friendship.getUserId());
+                        User user = usersById.get(friendship.getUserId());
+                        User friend = usersById.get(friendship.getFriendId());
+                        boolean remove = friendship.getAction() == BatchAction.REMOVE;
+                        if (linkFriends(user, friend, !remove)) {
+                            netChange = netChange != null ? null : Friendship.builder()
+                                    .userId(user.getId())
+                                    .friendId(friend.getId())
+                                    .action(remove ? BatchAction.REMOVE : BatchAction.ADD)
+                                    .build();
+                        } else if (remove) {
+                            result.error("Пользователь не является другом");
+                        } else {
+                            result.error("Пользователь уже является другом");
+                        }
+                        results[index] = result.build();
+                    }
+                    if (netChange != null) {
+                        cache.recordChange(netChange, List.of(first, second));
+                    }
+                }
+            }
+        }
+        flush();
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public void deleteUserById(Long userId) {
+        cache.invalidate(userId);
+        cache.discardChanges(friendship -> friendship.getUserId().equals(userId)
+                || friendship.getFriendId().equals(userId));
+        delegate.deleteUserById(userId);
+    }
+
+    private List<User> write(List<Friendship> friendships, Collection<User> updatedUsers) {
+        if (!friendships.isEmpty()) {
+            List<ImportResult> results = delegate.applyFriendships(friendships);
+            for (ImportResult result : results) {
+                if (result.getError() != null) {
+                    log.warn("Отложенное изменение дружбы {} отклонено: {}", friendships.get(result.getIndex()),
+                            result.getError());
+                }
+            }
+        }
+        List<User> retried = new ArrayList<>();
+        for (User user : updatedUsers) {
+            try {
+                delegate.update(user);
+            } catch (NotFoundException e) {
+                log.warn("Отложенное обновление пользователя с ID {} пропущено: пользователь удалён", user.getId());
+            } catch (ValidationException | NonTransientDataAccessException e) {
+                log.error("Отложенное обновление пользователя с ID {} отброшено: {}", user.getId(), e.getMessage());
+                cache.evict(user.getId(), user);
+            } catch (RuntimeException e) {
+                log.warn("Отложенное обновление пользователя с ID {} будет повторено: {}", user.getId(), e.getMessage());
+                retried.add(user);
+            }
+        }
+        return retried;
+    }
+
+    private boolean isPending(Friendship friendship) {
+        User user = cache.peek(friendship.getUserId());
+        if (user == null) {
+            return false;
+        }
+        synchronized (user) {
+            return user.getFriends().containsLong(friendship.getFriendId())
+                    == (friendship.getAction() != BatchAction.REMOVE);
+        }
+    }
+
+    private void forgetUser(long userId) {
+        for (User user : cache.values()) {
+            synchronized (user) {
+                user.getFriends().removeLong(userId);
+            }
+        }
+        cache.discardChanges(friendship -> friendship.getUserId() == userId || friendship.getFriendId() == userId);
+    }
+
+    private boolean addFriendship(User user, User friend) {
+        return changeFriendship(user, friend, BatchAction.ADD);
+    }
+
+    private boolean removeFriendship(User user, User friend) {
+        return changeFriendship(user, friend, BatchAction.REMOVE);
+    }
+
+    private boolean changeFriendship(User user, User friend, BatchAction action) {
+        User first = user.getId() < friend.getId() ? user : friend;
+        User second = user.getId() < friend.getId() ? friend : user;
+        synchronized (first) {
+            synchronized (second) {
+                if (!linkFriends(user, friend, action == BatchAction.ADD)) {
+                    return false;
+                }
+                cache.recordChange(Friendship.builder()
+                        .userId(user.getId())
+                        .friendId(friend.getId())
+                        .action(action)
+                        .build(), List.of(user, friend));
+                return true;
+            }
+        }
+    }
+
+    private static boolean linkFriends(User user, User friend, boolean linked) {
+        if (linked) {
+            if (!user.getFriends().addLong(friend.getId())) {
+                return false;
+            }
+            friend.getFriends().addLong(user.getId());
+        } else {
+            if (!user.getFriends().removeLong(friend.getId())) {
+                return false;
+            }
+            friend.getFriends().removeLong(user.getId());
+        }
+        return true;
+    }
+
+    private static List<Long> pairKey(long userId, long friendId) {
+        return userId < friendId ? List.of(userId, friendId) : List.of(friendId, userId);
+    }
+}
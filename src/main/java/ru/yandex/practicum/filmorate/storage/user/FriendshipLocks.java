@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+final class FriendshipLocks {
+
+    private static final int STRIPES = 1024;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    FriendshipLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    void lock(long userId, long friendId) {
+        int first = stripe(userId);
+        int second = stripe(friendId);
+        locks[Math.min(first, second)].lock();
+        if (first != second) {
+            locks[Math.max(first, second)].lock();
+        }
+    }
+
+    void unlock(long userId, long friendId) {
+        int first = stripe(userId);
+        int second = stripe(friendId);
+        if (first != second) {
+            locks[Math.max(first, second)].unlock();
+        }
+        locks[Math.min(first, second)].unlock();
+    }
+
+    private static int stripe(long id) {
+        return Long.hashCode(id * 0x9E3779B97F4A7C15L) & (STRIPES - 1);
+    }
+}
@@ -1,51 +1,241 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.event.DomainEvent;
+import ru.yandex.practicum.filmorate.event.DomainEventBus;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.IdGenerator;
+import ru.yandex.practicum.filmorate.storage.snapshot.SnapshotReader;
+import ru.yandex.practicum.filmorate.storage.snapshot.SnapshotSource;
+import ru.yandex.practicum.filmorate.storage.snapshot.SnapshotStore;
+import ru.yandex.practicum.filmorate.storage.snapshot.SnapshotWriter;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLog;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLogFactory;
 
-import java.time.LocalDate;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @Component
-public class InMemoryUserStorage implements UserStorage {
+@Profile("!jdbc")
+public class InMemoryUserStorage implements UserStorage, SnapshotSource {
 
     private static Logger log = LoggerFactory.getLogger(InMemoryUserStorage.class);
 
-    private Map<Long, User> users = new HashMap<>();
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+
+    private final NavigableSet<Long> userIds = new ConcurrentSkipListSet<>();
+
+    private final IdGenerator idGenerator = new IdGenerator();
+
+    private final ReadWriteLock mutationGate = new ReentrantReadWriteLock();
+
+    private final FriendshipLocks friendshipLocks = new FriendshipLocks();
+
+    private final WriteAheadLog wal;
+
+    private final SnapshotStore snapshotStore;
+
+    private final ObjectMapper objectMapper;
+
+    private final DomainEventBus eventBus;
+
+    public InMemoryUserStorage(WriteAheadLogFactory walFactory, SnapshotStore snapshotStore,
+                               ObjectMapper objectMapper, DomainEventBus eventBus) {
+        this.wal = walFactory.open("users");
+        this.snapshotStore = snapshotStore;
+        this.objectMapper = objectMapper;
+        this.eventBus = eventBus;
+    }
+
+    @PostConstruct
+    public void recover() {
+        Path snapshotFile = snapshotStore.file("users");
+        if (snapshotStore.isEnabled() && Files.exists(snapshotFile)) {
+            loadSnapshot(snapshotFile);
+        }
+        wal.replay(this::applyRecord);
+    }
+
+    @Override
+    public void snapshot() {
+        long sealedSegment;
+        long lastId;
+        mutationGate.writeLock().lock();
+        try {
+            sealedSegment = wal.roll();
+            lastId = idGenerator.lastId();
+        } finally {
+            mutationGate.writeLock().unlock();
+        }
+
+        long written = 0;
+        try (SnapshotWriter writer = new SnapshotWriter(snapshotStore.file("users"))) {
+            writer.writeLong(lastId);
+            for (User user : users.values()) {
+                writer.writeBoolean(true);
+                writer.writeLong(user.getId());
+                writer.writeString(user.getEmail());
+                writer.writeString(user.getLogin());
+                writer.writeString(user.getName());
+                writer.writeDate(user.getBirthday());
+                writer.writeLongs(user.getFriends().toLongArray());
+                written++;
+            }
+            writer.writeBoolean(false);
+            writer.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить снимок пользователей", e);
+        }
+        wal.deleteSegmentsUpTo(sealedSegment);
+        log.info("Снимок пользователей сохранён, пользователей: {}", written);
+    }
+
+    @PreDestroy
+    public void close() {
+        wal.close();
+    }
 
     @Override
     public User create(User user) {
-        validation(user);
-        user.setId(generationId());
-        user.setFriends(new HashSet<>());
+        UserValidator.validate(user);
+        mutationGate.readLock().lock();
+        try {
+            user.setId(idGenerator.nextId());
+            user.setFriends(new LongHashSet());
 
-        users.put(user.getId(), user);
+            journal(WalRecord.CREATE, user.getId(), user);
+
+            users.put(user.getId(), user);
+            userIds.add(user.getId());
+        } finally {
+            mutationGate.readLock().unlock();
+        }
+        eventBus.publish(new DomainEvent.UserCreated(user.getId()));
 
         log.info("Пользователь создан {} и добавлен в хранилище {}", user, user.getId());
         return user;
     }
 
+    @Override
+    public List<ImportResult> createAll(List<User> newUsers) {
+        ImportResult[] results = UserValidator.validateAll(newUsers);
+        int accepted = 0;
+        for (ImportResult result : results) {
+            if (result == null) {
+                accepted++;
+            }
+        }
+
+        mutationGate.readLock().lock();
+        try {
+            long nextId = idGenerator.nextBlock(accepted);
+            for (int index = 0; index < results.length; index++) {
+                if (results[index] != null) {
+                    continue;
+                }
+                User user = newUsers.get(index);
+                user.setId(nextId++);
+                user.setFriends(new LongHashSet());
+
+                journal(WalRecord.CREATE, user.getId(), user);
+                users.put(user.getId(), user);
+                userIds.add(user.getId());
+                results[index] = ImportResult.builder().index(index).id(user.getId()).build();
+            }
+        } finally {
+            mutationGate.readLock().unlock();
+        }
+        for (ImportResult result : results) {
+            if (result.getError() == null) {
+                eventBus.publish(new DomainEvent.UserCreated(result.getId()));
+            }
+        }
+        log.info("Импортировано пользователей: {} из {}", accepted, newUsers.size());
+
+        return Arrays.asList(results);
+    }
+
     @Override
     public User update(User newUser) {
-        validation(newUser);
+        UserValidator.validate(newUser);
         validationUpdateUser(newUser);
-        users.put(newUser.getId(), newUser);
+        if (newUser.getFriends() == null) {
+            newUser.setFriends(new LongHashSet());
+        }
+        mutationGate.readLock().lock();
+        try {
+            journal(WalRecord.UPDATE, newUser.getId(), newUser);
+            if (users.replace(newUser.getId(), newUser) == null) {
+                log.warn("Id пользователя не найден {}", newUser.getId());
+                throw new NotFoundException("Пользователь с таким Id не найден");
+            }
+        } finally {
+            mutationGate.readLock().unlock();
+        }
+        eventBus.publish(new DomainEvent.UserUpdated(newUser.getId()));
         log.info("Пользователь обновлён с Id: {}", newUser.getId());
         return newUser;
     }
 
     @Override
     public List<User> getAllUsers() {
-        return new ArrayList<>(users.values());
+        return findAllByIds(userIds);
+    }
+
+    @Override
+    public List<User> getAllUsers(Long afterId, int limit) {
+        NavigableSet<Long> page = afterId == null ? userIds : userIds.tailSet(afterId, false);
+        List<User> pageUsers = new ArrayList<>(Math.min(limit, 1024));
+        for (Long userId : page) {
+            if (pageUsers.size() >= limit) {
+                break;
+            }
+            User user = users.get(userId);
+            if (user != null) {
+                pageUsers.add(user);
+            }
+        }
+        return pageUsers;
     }
 
     @Override
     public void clearUsers() {
-        users.clear();
+        mutationGate.readLock().lock();
+        try {
+            journal(WalRecord.CLEAR, 0, null);
+            users.clear();
+            userIds.clear();
+            idGenerator.reset();
+        } finally {
+            mutationGate.readLock().unlock();
+        }
+        eventBus.publish(new DomainEvent.UsersCleared());
+    }
+
+    @Override
+    public long count() {
+        return users.size();
     }
 
     @Override
@@ -58,36 +248,123 @@ public class InMemoryUserStorage implements UserStorage {
     }
 
     @Override
-    public void deleteUserById(Long userId) {
-        User removeUser = users.get(userId);
-        if (removeUser != null) {
-            users.remove(userId);
-            log.info("Пользователь с ID {} успешно удалён", userId);
-        } else {
-            log.error("Пользователь с ID {} для удаления не найден", userId);
-            throw new NotFoundException("Пользователь для удаления с ID " + userId + " не найден");
+    public List<User> findAllByIds(Collection<Long> userIds) {
+        List<User> foundUsers = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            User user = users.get(userId);
+            if (user != null) {
+                foundUsers.add(user);
+            }
         }
+        return foundUsers;
+    }
+
+    @Override
+    public List<User> findMutualFriends(Long userId, Long otherId) {
+        LongHashSet friendsOfUser = findById(userId).getFriends();
+        LongHashSet friendsOfOther = findById(otherId).getFriends();
+        LongHashSet smaller = friendsOfUser.size() <= friendsOfOther.size() ? friendsOfUser : friendsOfOther;
+        LongHashSet larger = smaller == friendsOfUser ? friendsOfOther : friendsOfUser;
 
+        List<Long> mutualIds = new ArrayList<>();
+        for (long mutualId : smaller.toLongArray()) {
+            if (larger.containsLong(mutualId)) {
+                mutualIds.add(mutualId);
+            }
+        }
+        return findAllByIds(mutualIds);
     }
 
-    private void validation(User user) {
-        if (user.getEmail() == null || user.getEmail().isEmpty() || user.getEmail().isBlank() ||
-                !user.getEmail().contains("@")) {
-            log.warn("Электронная почта пользователя {}", user.getEmail());
-            throw new ValidationException("электронная почта не может быть пустой и должна содержать символ @");
+    @Override
+    public boolean addFriend(Long userId, Long friendId) {
+        User user = findById(userId);
+        User friend = findById(friendId);
+        boolean added;
+        mutationGate.readLock().lock();
+        try {
+            added = addFriendship(user, friend);
+        } finally {
+            mutationGate.readLock().unlock();
         }
-        if (user.getLogin() == null || user.getLogin().isBlank() || user.getLogin().isEmpty()) {
-            log.warn("Логин пользователя пуст");
-            throw new ValidationException("Логин не может быть пустым и содержать пробелы");
+        if (added) {
+            eventBus.publish(new DomainEvent.FriendAdded(userId, friendId));
         }
-        if (user.getBirthday().isAfter(LocalDate.now())) {
-            log.warn("Дата рождения {}", user.getBirthday());
-            throw new ValidationException("Дата рождения не может быть в будущем");
+        return added;
+    }
+
+    @Override
+    public boolean removeFriend(Long userId, Long friendId) {
+        User user = findById(userId);
+        User friend = findById(friendId);
+        boolean removed;
+        mutationGate.readLock().lock();
+        try {
+            removed = removeFriendship(user, friend);
+        } finally {
+            mutationGate.readLock().unlock();
         }
-        if (user.getName() == null || user.getName().trim().isEmpty() || user.getName().isBlank()) {
-            log.debug("Имя пользователя пустое, используется логин: {}", user.getLogin());
-            user.setName(user.getLogin());
+        if (removed) {
+            eventBus.publish(new DomainEvent.FriendRemoved(userId, friendId));
         }
+        return removed;
+    }
+
+    @Override
+    public List<ImportResult> applyFriendships(List<Friendship> friendships) {
+        List<ImportResult> results = new ArrayList<>(friendships.size());
+        List<DomainEvent> events = new ArrayList<>(friendships.size());
+        mutationGate.readLock().lock();
+        try {
+            for (int index = 0; index < friendships.size(); index++) {
+                Friendship friendship = friendships.get(index);
+                ImportResult.ImportResultBuilder result = ImportResult.builder()
+                        .index(index)
+                        .id(friendship.getUserId());
+                User user = users.get(friendship.getUserId());
+                User friend = users.get(friendship.getFriendId());
+                if (user == null || friend == null) {
+                    result.error("Пользователь  с ID: " + friendship.getUserId() + " или друг с ID " +
+                            friendship.getFriendId() + " не найдены");
+                } else if (friendship.getAction() == BatchAction.REMOVE) {
+                    if (removeFriendship(user, friend)) {
+                        events.add(new DomainEvent.FriendRemoved(user.getId(), friend.getId()));
+                    } else {
+                        result.error("Пользователь не является другом");
+                    }
+                } else if (addFriendship(user, friend)) {
+                    events.add(new DomainEvent.FriendAdded(user.getId(), friend.getId()));
+                } else {
+                    result.error("Пользователь уже является другом");
+                }
+                results.add(result.build());
+            }
+        } finally {
+            mutationGate.readLock().unlock();
+        }
+        for (DomainEvent event : events) {
+            eventBus.publish(event);
+        }
+        return results;
+    }
+
+    @Override
+    public void deleteUserById(Long userId) {
+        if (users.containsKey(userId)) {
+            mutationGate.readLock().lock();
+            try {
+                journal(WalRecord.DELETE, userId, null);
+                users.remove(userId);
+                userIds.remove(userId);
+            } finally {
+                mutationGate.readLock().unlock();
+            }
+            eventBus.publish(new DomainEvent.UserDeleted(userId));
+            log.info("Пользователь с ID {} успешно удалён", userId);
+        } else {
+            log.error("Пользователь с ID {} для удаления не найден", userId);
+            throw new NotFoundException("Пользователь для удаления с ID " + userId + " не найден");
+        }
+
     }
 
     private void validationUpdateUser(User newUser) {
@@ -102,8 +379,126 @@ public class InMemoryUserStorage implements UserStorage {
         }
     }
 
-    private long generationId() {
-        long currentMaxId = users.keySet().stream().mapToLong(id -> id).max().orElse(0);
-        return ++currentMaxId;
+    private void journal(String operation, long userId, User user) {
+        if (!wal.isEnabled()) {
+            return;
+        }
+        try {
+            wal.append(operation, userId, user == null ? null : objectMapper.writeValueAsString(user));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Не удалось сериализовать пользователя с ID " + userId, e);
+        }
+    }
+
+    private boolean addFriendship(User user, User friend) {
+        friendshipLocks.lock(user.getId(), friend.getId());
+        try {
+            if (user.getFriends().containsLong(friend.getId())) {
+                return false;
+            }
+            if (wal.isEnabled()) {
+                wal.append(WalRecord.FRIEND, user.getId(), String.valueOf(friend.getId()));
+            }
+            user.getFriends().addLong(friend.getId());
+            friend.getFriends().addLong(user.getId());
+            return true;
+        } finally {
+            friendshipLocks.unlock(user.getId(), friend.getId());
+        }
+    }
+
+    private boolean removeFriendship(User user, User friend) {
+        friendshipLocks.lock(user.getId(), friend.getId());
+        try {
+            if (!user.getFriends().containsLong(friend.getId())) {
+                return false;
+            }
+            if (wal.isEnabled()) {
+                wal.append(WalRecord.UNFRIEND, user.getId(), String.valueOf(friend.getId()));
+            }
+            user.getFriends().removeLong(friend.getId());
+            friend.getFriends().removeLong(user.getId());
+            return true;
+        } finally {
+            friendshipLocks.unlock(user.getId(), friend.getId());
+        }
+    }
+
+    private void applyRecord(WalRecord record) {
+        switch (record.operation()) {
+            case WalRecord.CREATE -> restore(record);
+            case WalRecord.UPDATE -> {
+                if (users.containsKey(record.id())) {
+                    restore(record);
+                }
+            }
+            case WalRecord.FRIEND -> {
+                User user = users.get(record.id());
+                User friend = users.get(Long.parseLong(record.payload()));
+                if (user != null && friend != null) {
+                    user.getFriends().addLong(friend.getId());
+                    friend.getFriends().addLong(user.getId());
+                }
+            }
+            case WalRecord.UNFRIEND -> {
+                User user = users.get(record.id());
+                User friend = users.get(Long.parseLong(record.payload()));
+                if (user != null && friend != null) {
+                    user.getFriends().removeLong(friend.getId());
+                    friend.getFriends().removeLong(user.getId());
+                }
+            }
+            case WalRecord.DELETE -> {
+                users.remove(record.id());
+                userIds.remove(record.id());
+            }
+            case WalRecord.CLEAR -> {
+                users.clear();
+                userIds.clear();
+                idGenerator.reset();
+            }
+            default -> throw new IllegalStateException("Неизвестная операция журнала: " + record.operation());
+        }
+    }
+
+    private void loadSnapshot(Path snapshotFile) {
+        long loaded = 0;
+        try (SnapshotReader reader = new SnapshotReader(snapshotFile)) {
+            idGenerator.advanceTo(reader.readLong());
+            while (reader.readBoolean()) {
+                User user = User.builder()
+                        .id(reader.readLong())
+                        .email(reader.readString())
+                        .login(reader.readString())
+                        .name(reader.readString())
+                        .birthday(reader.readDate())
+                        .build();
+                for (long friendId : reader.readLongs()) {
+                    user.getFriends().addLong(friendId);
+                }
+                users.put(user.getId(), user);
+                userIds.add(user.getId());
+                idGenerator.advanceTo(user.getId());
+                loaded++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось загрузить снимок пользователей " + snapshotFile, e);
+        }
+        log.info("Из снимка {} загружено пользователей: {}", snapshotFile, loaded);
+    }
+
+    private void restore(WalRecord record) {
+        User user;
+        try {
+            user = objectMapper.readValue(record.payload(), User.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Не удалось восстановить пользователя с ID " + record.id(), e);
+        }
+        if (user.getFriends() == null) {
+            user.setFriends(new LongHashSet());
+        }
+        users.put(user.getId(), user);
+        userIds.add(user.getId());
+        idGenerator.advanceTo(user.getId());
     }
 }
@@ -0,0 +1,417 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.event.DomainEvent;
+import ru.yandex.practicum.filmorate.event.DomainEventBus;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.*;
+
+@Component
+@Profile("jdbc")
+public class JdbcUserStorage implements UserStorage {
+
+    private static final int IN_CLAUSE_BATCH_SIZE = 1000;
+
+    private static final String SELECT_USERS = "SELECT id, email, login, name, birthday FROM users";
+
+    private static final String INSERT_USER =
+            "INSERT INTO users (email, login, name, birthday) VALUES (:email, :login, :name, :birthday)";
+
+    private static final RowMapper<User> USER_MAPPER = (rs, rowNum) -> User.builder()
+            .id(rs.getLong("id"))
+            .email(rs.getString("email"))
+            .login(rs.getString("login"))
+            .name(rs.getString("name"))
+            .birthday(rs.getObject("birthday", LocalDate.class))
+            .build();
+
+    private static Logger log = LoggerFactory.getLogger(JdbcUserStorage.class);
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final DomainEventBus eventBus;
+
+    public JdbcUserStorage(NamedParameterJdbcTemplate jdbc, DomainEventBus eventBus) {
+        this.jdbc = jdbc;
+        this.eventBus = eventBus;
+    }
+
+    @Override
+    @Transactional
+    public User create(User user) {
+        UserValidator.validate(user);
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.update(INSERT_USER, userParameters(user), keyHolder, new String[]{"id"});
+        user.setId(keyHolder.getKeyAs(Long.class));
+        user.setFriends(new LongHashSet());
+        eventBus.publish(new DomainEvent.UserCreated(user.getId()));
+
+        log.info("Пользователь создан {} и добавлен в хранилище {}", user, user.getId());
+        return user;
+    }
+
+    @Override
+    @Transactional
+    public List<ImportResult> createAll(List<User> newUsers) {
+        ImportResult[] results = UserValidator.validateAll(newUsers);
+        List<Integer> accepted = new ArrayList<>(newUsers.size());
+        for (int index = 0; index < results.length; index++) {
+            if (results[index] == null) {
+                accepted.add(index);
+            }
+        }
+
+        for (List<Integer> chunk : chunks(accepted)) {
+            SqlParameterSource[] batch = new SqlParameterSource[chunk.size()];
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] = userParameters(newUsers.get(chunk.get(i)));
+            }
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbc.batchUpdate(INSERT_USER, batch, keyHolder, new String[]{"id"});
+
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < batch.length; i++) {
+                int index = chunk.get(i);
+                User user = newUsers.get(index);
+                user.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+                user.setFriends(new LongHashSet());
+                results[index] = ImportResult.builder().index(index).id(user.getId()).build();
+                eventBus.publish(new DomainEvent.UserCreated(user.getId()));
+            }
+        }
+        log.info("Импортировано пользователей: {} из {}", accepted.size(), newUsers.size());
+
+        return Arrays.asList(results);
+    }
+
+    @Override
+    @Transactional
+    public User update(User newUser) {
+        UserValidator.validate(newUser);
+        if (newUser.getId() == null) {
+            log.debug("Id не указан для обновления");
+            throw new ValidationException("Id должен быть указан");
+        }
+        if (newUser.getFriends() == null) {
+            newUser.setFriends(new LongHashSet());
+        }
+
+        int updated = jdbc.update("UPDATE users SET email = :email, login = :login, name = :name, " +
+                "birthday = :birthday WHERE id = :id", userParameters(newUser));
+        if (updated == 0) {
+            log.warn("Id пользователя не найден {}", newUser.getId());
+            throw new NotFoundException("Пользователь с таким Id не найден");
+        }
+        syncFriends(newUser);
+        eventBus.publish(new DomainEvent.UserUpdated(newUser.getId()));
+
+        log.info("Пользователь обновлён с Id: {}", newUser.getId());
+        return newUser;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<User> getAllUsers() {
+        List<User> users = jdbc.query(SELECT_USERS + " ORDER BY id", USER_MAPPER);
+        Map<Long, User> usersById = indexById(users);
+        jdbc.query("SELECT user_id, friend_id FROM friendships", Map.of(),
+                (RowCallbackHandler) rs -> addFriend(usersById, rs.getLong("user_id"), rs.getLong("friend_id")));
+        return users;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<User> getAllUsers(Long afterId, int limit) {
+        List<User> users = jdbc.query(SELECT_USERS + " WHERE id > :afterId ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("afterId", afterId == null ? 0L : afterId)
+                        .addValue("limit", limit),
+                USER_MAPPER);
+        loadFriends(users);
+        return users;
+    }
+
+    @Override
+    @Transactional
+    public void clearUsers() {
+        jdbc.getJdbcOperations().update("DELETE FROM users");
+        jdbc.getJdbcOperations().execute("ALTER TABLE users ALTER COLUMN id RESTART WITH 1");
+        eventBus.publish(new DomainEvent.UsersCleared());
+    }
+
+    @Override
+    public long count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM users", Map.of(), Long.class);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public User findById(Long userId) {
+        List<User> users = jdbc.query(SELECT_USERS + " WHERE id = :id", Map.of("id", userId), USER_MAPPER);
+        if (users.isEmpty()) {
+            throw new NotFoundException("Пользователь с ID " + userId + " не найден");
+        }
+        loadFriends(users);
+        return users.get(0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<User> findAllByIds(Collection<Long> userIds) {
+        Map<Long, User> usersById = new HashMap<>();
+        for (List<Long> chunk : chunks(userIds)) {
+            for (User user : jdbc.query(SELECT_USERS + " WHERE id IN (:ids)", Map.of("ids", chunk), USER_MAPPER)) {
+                usersById.put(user.getId(), user);
+            }
+        }
+
+        List<User> foundUsers = new ArrayList<>(usersById.size());
+        for (Long userId : userIds) {
+            User user = usersById.get(userId);
+            if (user != null) {
+                foundUsers.add(user);
+            }
+        }
+        loadFriends(foundUsers);
+        return foundUsers;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<User> findMutualFriends(Long userId, Long otherId) {
+        List<User> mutualFriends = jdbc.query("SELECT u.id, u.email, u.login, u.name, u.birthday FROM users u " +
+                        "JOIN friendships f1 ON f1.friend_id = u.id AND f1.user_id = :userId " +
+                        "JOIN friendships f2 ON f2.friend_id = u.id AND f2.user_id = :otherId " +
+                        "ORDER BY u.id",
+                new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("otherId", otherId),
+                USER_MAPPER);
+        loadFriends(mutualFriends);
+        return mutualFriends;
+    }
+
+    @Override
+    @Transactional
+    public boolean addFriend(Long userId, Long friendId) {
+        findById(userId);
+        findById(friendId);
+        MapSqlParameterSource parameters = friendParameters(userId, friendId);
+        if (jdbc.queryForObject("SELECT COUNT(*) FROM friendships WHERE user_id = :userId AND friend_id = :friendId",
+                parameters, Integer.class) > 0) {
+            return false;
+        }
+        jdbc.batchUpdate("MERGE INTO friendships (user_id, friend_id) KEY (user_id, friend_id) " +
+                "VALUES (:userId, :friendId)", new SqlParameterSource[]{parameters, friendParameters(friendId, userId)});
+        eventBus.publish(new DomainEvent.FriendAdded(userId, friendId));
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public boolean removeFriend(Long userId, Long friendId) {
+        findById(userId);
+        findById(friendId);
+        int[] deleted = jdbc.batchUpdate("DELETE FROM friendships WHERE user_id = :userId AND friend_id = :friendId",
+                new SqlParameterSource[]{friendParameters(userId, friendId), friendParameters(friendId, userId)});
+        if (deleted[0] + deleted[1] == 0) {
+            return false;
+        }
+        eventBus.publish(new DomainEvent.FriendRemoved(userId, friendId));
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public List<ImportResult> applyFriendships(List<Friendship> friendships) {
+        Set<Long> userIds = new HashSet<>();
+        List<Object[]> pairs = new ArrayList<>(friendships.size());
+        for (Friendship friendship : friendships) {
+            userIds.add(friendship.getUserId());
+            userIds.add(friendship.getFriendId());
+            pairs.add(new Object[]{friendship.getUserId(), friendship.getFriendId()});
+        }
+        Set<Long> existingUsers = new HashSet<>();
+        for (List<Long> chunk : chunks(userIds)) {
+            existingUsers.addAll(jdbc.queryForList("SELECT id FROM users WHERE id IN (:ids)", Map.of("ids", chunk),
+                    Long.class));
+        }
+        Set<Friendship> storedFriendships = new HashSet<>();
+        for (List<Object[]> chunk : chunks(pairs)) {
+            jdbc.query("SELECT user_id, friend_id FROM friendships WHERE (user_id, friend_id) IN (:pairs)",
+                    Map.of("pairs", chunk), (RowCallbackHandler) rs ->
+                            storedFriendships.add(friendshipKey(rs.getLong("user_id"), rs.getLong("friend_id"))));
+        }
+
+        List<ImportResult> results = new ArrayList<>(friendships.size());
+        Set<Friendship> currentFriendships = new HashSet<>(storedFriendships);
+        for (int index = 0; index < friendships.size(); index++) {
+            Friendship friendship = friendships.get(index);
+            ImportResult.ImportResultBuilder result = ImportResult.builder()
+                    .index(index)
+                    .id(friendship.getUserId());
+            if (!existingUsers.contains(friendship.getUserId()) || !existingUsers.contains(friendship.getFriendId())) {
+                result.error("Пользователь  с ID: " + friendship.getUserId() + " или друг с ID " +
+                        friendship.getFriendId() + " не найдены");
+            } else if (friendship.getAction() == BatchAction.REMOVE) {
+                if (currentFriendships.remove(friendshipKey(friendship.getUserId(), friendship.getFriendId()))) {
+                    eventBus.publish(new DomainEvent.FriendRemoved(friendship.getUserId(), friendship.getFriendId()));
+                } else {
+                    result.error("Пользователь не является другом");
+                }
+            } else if (currentFriendships.add(friendshipKey(friendship.getUserId(), friendship.getFriendId()))) {
+                eventBus.publish(new DomainEvent.FriendAdded(friendship.getUserId(), friendship.getFriendId()));
+            } else {
+                result.error("Пользователь уже является другом");
+            }
+            results.add(result.build());
+        }
+
+        SqlParameterSource[] inserts = friendParameters(currentFriendships, storedFriendships);
+        if (inserts.length > 0) {
+            jdbc.batchUpdate("MERGE INTO friendships (user_id, friend_id) KEY (user_id, friend_id) " +
+                    "VALUES (:userId, :friendId)", inserts);
+        }
+        SqlParameterSource[] deletes = friendParameters(storedFriendships, currentFriendships);
+        if (deletes.length > 0) {
+            jdbc.batchUpdate("DELETE FROM friendships WHERE user_id = :userId AND friend_id = :friendId", deletes);
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public void deleteUserById(Long userId) {
+        jdbc.update("UPDATE films SET likes = likes - 1 WHERE id IN (SELECT film_id FROM film_likes WHERE user_id = :id)",
+                Map.of("id", userId));
+        if (jdbc.update("DELETE FROM users WHERE id = :id", Map.of("id", userId)) > 0) {
+            eventBus.publish(new DomainEvent.UserDeleted(userId));
+            log.info("Пользователь с ID {} успешно удалён", userId);
+        } else {
+            log.error("Пользователь с ID {} для удаления не найден", userId);
+            throw new NotFoundException("Пользователь для удаления с ID " + userId + " не найден");
+        }
+    }
+
+    private void loadFriends(List<User> users) {
+        Map<Long, User> usersById = indexById(users);
+        for (List<Long> chunk : chunks(usersById.keySet())) {
+            jdbc.query("SELECT user_id, friend_id FROM friendships WHERE user_id IN (:ids)", Map.of("ids", chunk),
+                    (RowCallbackHandler) rs -> addFriend(usersById, rs.getLong("user_id"), rs.getLong("friend_id")));
+        }
+    }
+
+    private void syncFriends(User user) {
+        Set<Long> storedFriends = new HashSet<>(jdbc.queryForList(
+                "SELECT friend_id FROM friendships WHERE user_id = :userId", Map.of("userId", user.getId()), Long.class));
+
+        List<Long> addedFriends = new ArrayList<>();
+        for (long friendId : user.getFriends().toLongArray()) {
+            if (!storedFriends.remove(friendId)) {
+                addedFriends.add(friendId);
+            }
+        }
+        batchFriends("INSERT INTO friendships (user_id, friend_id) VALUES (:userId, :friendId)", user.getId(),
+                addedFriends);
+        batchFriends("DELETE FROM friendships WHERE user_id = :userId AND friend_id = :friendId", user.getId(),
+                storedFriends);
+    }
+
+    private void batchFriends(String sql, long userId, Collection<Long> friendIds) {
+        if (friendIds.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[friendIds.size()];
+        int index = 0;
+        for (Long friendId : friendIds) {
+            batch[index++] = new MapSqlParameterSource()
+                    .addValue("userId", userId)
+                    .addValue("friendId", friendId);
+        }
+        jdbc.batchUpdate(sql, batch);
+    }
+
+    private static Friendship friendshipKey(long userId, long friendId) {
+        return Friendship.builder()
+                .userId(Math.min(userId, friendId))
+                .friendId(Math.max(userId, friendId))
+                .build();
+    }
+
+    private static SqlParameterSource[] friendParameters(Set<Friendship> friendships, Set<Friendship> excluded) {
+        List<SqlParameterSource> parameters = new ArrayList<>();
+        for (Friendship friendship : friendships) {
+            if (!excluded.contains(friendship)) {
+                parameters.add(friendParameters(friendship.getUserId(), friendship.getFriendId()));
+                parameters.add(friendParameters(friendship.getFriendId(), friendship.getUserId()));
+            }
+        }
+        return parameters.toArray(new SqlParameterSource[0]);
+    }
+
+    private static MapSqlParameterSource friendParameters(long userId, long friendId) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("friendId", friendId);
+    }
+
+    private static MapSqlParameterSource userParameters(User user) {
+        return new MapSqlParameterSource()
+                .addValue("id", user.getId())
+                .addValue("email", user.getEmail())
+                .addValue("login", user.getLogin())
+                .addValue("name", user.getName())
+                .addValue("birthday", user.getBirthday());
+    }
+
+    private static Map<Long, User> indexById(List<User> users) {
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : users) {
+            user.setFriends(new LongHashSet());
+            usersById.put(user.getId(), user);
+        }
+        return usersById;
+    }
+
+    private static void addFriend(Map<Long, User> usersById, long userId, long friendId) {
+        User user = usersById.get(userId);
+        if (user != null) {
+            user.getFriends().addLong(friendId);
+        }
+    }
+
+    private static <T> List<List<T>> chunks(Collection<T> ids) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(Math.min(ids.size(), IN_CLAUSE_BATCH_SIZE));
+        for (T id : ids) {
+            chunk.add(id);
+            if (chunk.size() == IN_CLAUSE_BATCH_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(IN_CLAUSE_BATCH_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
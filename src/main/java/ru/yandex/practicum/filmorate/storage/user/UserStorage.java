@@ -1,19 +1,38 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface UserStorage {
     User create(User user);
 
+    List<ImportResult> createAll(List<User> newUsers);
+
     User update(User newUser);
 
     List<User> getAllUsers();
 
+    List<User> getAllUsers(Long afterId, int limit);
+
     void clearUsers();
 
+    long count();
+
     User findById(Long userId);
 
+    List<User> findAllByIds(Collection<Long> userIds);
+
+    List<User> findMutualFriends(Long userId, Long otherId);
+
+    boolean addFriend(Long userId, Long friendId);
+
+    boolean removeFriend(Long userId, Long friendId);
+
+    List<ImportResult> applyFriendships(List<Friendship> friendships);
+
     void deleteUserById(Long userId);
 }
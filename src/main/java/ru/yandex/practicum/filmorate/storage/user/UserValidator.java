@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+final class UserValidator {
+
+    private static final Logger log = LoggerFactory.getLogger(UserValidator.class);
+
+    private UserValidator() {
+    }
+
+    static void validate(User user) {
+        if (user.getEmail() == null || user.getEmail().isEmpty() || user.getEmail().isBlank() ||
+                !user.getEmail().contains("@")) {
+            log.warn("Электронная почта пользователя {}", user.getEmail());
+            throw new ValidationException("электронная почта не может быть пустой и должна содержать символ @");
+        }
+        if (user.getLogin() == null || user.getLogin().isBlank() || user.getLogin().isEmpty()) {
+            log.warn("Логин пользователя пуст");
+            throw new ValidationException("Логин не может быть пустым и содержать пробелы");
+        }
+        if (user.getBirthday().isAfter(LocalDate.now())) {
+            log.warn("Дата рождения {}", user.getBirthday());
+            throw new ValidationException("Дата рождения не может быть в будущем");
+        }
+        if (user.getName() == null || user.getName().trim().isEmpty() || user.getName().isBlank()) {
+            log.debug("Имя пользователя пустое, используется логин: {}", user.getLogin());
+            user.setName(user.getLogin());
+        }
+    }
+
+    static ImportResult[] validateAll(List<User> users) {
+        ImportResult[] results = new ImportResult[users.size()];
+        IntStream.range(0, users.size()).parallel().forEach(index -> {
+            String error = null;
+            try {
+                validate(users.get(index));
+            } catch (ValidationException e) {
+                error = e.getMessage();
+            } catch (RuntimeException e) {
+                error = "Некорректные данные пользователя";
+            }
+            if (error != null) {
+                results[index] = ImportResult.builder().index(index).error(error).build();
+            }
+        });
+        return results;
+    }
+}
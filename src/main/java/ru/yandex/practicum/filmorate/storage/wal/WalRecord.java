@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+public record WalRecord(String operation, long id, String payload) {
+
+    public static final String CREATE = "CREATE";
+    public static final String UPDATE = "UPDATE";
+    public static final String DELETE = "DELETE";
+    public static final String CLEAR = "CLEAR";
+    public static final String LIKE = "LIKE";
+    public static final String UNLIKE = "UNLIKE";
+    public static final String FRIEND = "FRIEND";
+    public static final String UNFRIEND = "UNFRIEND";
+}
@@ -0,0 +1,350 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+public class WriteAheadLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final char SEPARATOR = '\t';
+    private static final byte LINE_END = '\n';
+
+    private final Path directory;
+    private final String name;
+    private final Pattern segmentPattern;
+    private final long syncIntervalMs;
+    private final Thread flusher;
+
+    private Path file;
+    private long segment;
+    private FileChannel channel;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long appendedSequence;
+    private long syncedSequence;
+    private IOException failure;
+    private boolean closed;
+
+    private WriteAheadLog() {
+        this.directory = null;
+        this.name = null;
+        this.segmentPattern = null;
+        this.syncIntervalMs = 0;
+        this.flusher = null;
+    }
+
+    public WriteAheadLog(Path directory, String name, long syncIntervalMs) throws IOException {
+        this.directory = directory;
+        this.name = name;
+        this.segmentPattern = Pattern.compile(Pattern.quote(name) + "\\.(\\d+)\\.wal");
+        this.syncIntervalMs = syncIntervalMs;
+
+        Files.createDirectories(directory);
+        List<Long> segments = listSegments();
+        this.segment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+        this.file = segmentFile(segment);
+        this.channel = openSegment(file);
+        truncateTornTail();
+        channel.position(channel.size());
+
+        if (syncIntervalMs > 0) {
+            this.flusher = new Thread(this::flushLoop, "wal-flusher-" + file.getFileName());
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        } else {
+            this.flusher = null;
+        }
+        log.info("Журнал {} открыт, интервал синхронизации {} мс", file, syncIntervalMs);
+    }
+
+    public static WriteAheadLog disabled() {
+        return new WriteAheadLog();
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    public void replay(Consumer<WalRecord> consumer) {
+        if (!isEnabled()) {
+            return;
+        }
+        for (long replayedSegment : listSegments()) {
+            replaySegment(segmentFile(replayedSegment), consumer);
+        }
+    }
+
+    public long roll() {
+        if (!isEnabled()) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Журнал " + file + " закрыт");
+            }
+            while (syncedSequence < appendedSequence && failure == null) {
+                try {
+                    changed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Переключение журнала " + file + " прервано", e);
+                }
+            }
+            try {
+                Path nextFile = segmentFile(segment + 1);
+                FileChannel nextChannel = openSegment(nextFile);
+                channel.force(true);
+                channel.close();
+                channel = nextChannel;
+                file = nextFile;
+                segment++;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось переключить журнал " + file, e);
+            }
+            log.info("Журнал переключён на сегмент {}", file);
+            return segment - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void deleteSegmentsUpTo(long sealedSegment) {
+        if (!isEnabled()) {
+            return;
+        }
+        for (long oldSegment : listSegments()) {
+            if (oldSegment > sealedSegment) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(segmentFile(oldSegment));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось удалить сегмент журнала " + oldSegment, e);
+            }
+        }
+    }
+
+    public void append(String operation, long id, String payload) {
+        if (!isEnabled()) {
+            return;
+        }
+        byte[] record = (operation + SEPARATOR + id + SEPARATOR + (payload == null ? "" : payload) + '\n')
+                .getBytes(StandardCharsets.UTF_8);
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Журнал " + file + " закрыт");
+            }
+            if (flusher == null) {
+                try {
+                    writeFully(channel, record);
+                    channel.force(false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Не удалось записать в журнал " + file, e);
+                }
+                return;
+            }
+
+            pending.write(record, 0, record.length);
+            long sequence = ++appendedSequence;
+            changed.signalAll();
+            boolean interrupted = false;
+            while (syncedSequence < sequence && failure == null) {
+                try {
+                    changed.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (syncedSequence < sequence) {
+                throw new UncheckedIOException("Не удалось записать в журнал " + file, failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (flusher != null) {
+                flusher.join();
+            }
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Не удалось закрыть журнал {}", file, e);
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            byte[] batch;
+            long sequence;
+            FileChannel target;
+            lock.lock();
+            try {
+                while (pending.size() == 0 && !closed) {
+                    try {
+                        changed.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+                batch = pending.toByteArray();
+                pending.reset();
+                sequence = appendedSequence;
+                target = channel;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                writeFully(target, batch);
+                target.force(false);
+            } catch (IOException e) {
+                log.error("Не удалось синхронизировать журнал {}", file, e);
+                lock.lock();
+                try {
+                    failure = e;
+                    changed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                syncedSequence = sequence;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                Thread.sleep(syncIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void replaySegment(Path segmentFile, Consumer<WalRecord> consumer) {
+        long replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(segmentFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int idEnd = line.indexOf(SEPARATOR);
+                int payloadStart = line.indexOf(SEPARATOR, idEnd + 1);
+                if (idEnd < 0 || payloadStart < 0) {
+                    throw new IllegalStateException("Повреждённая запись журнала " + segmentFile + ": " + line);
+                }
+                consumer.accept(new WalRecord(line.substring(0, idEnd),
+                        Long.parseLong(line.substring(idEnd + 1, payloadStart)),
+                        line.substring(payloadStart + 1)));
+                replayed++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать журнал " + segmentFile, e);
+        }
+        log.info("Из журнала {} восстановлено записей: {}", segmentFile, replayed);
+    }
+
+    private List<Long> listSegments() {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                Matcher matcher = segmentPattern.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать каталог журнала " + directory, e);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private Path segmentFile(long segmentNumber) {
+        return directory.resolve(name + "." + segmentNumber + ".wal");
+    }
+
+    private static FileChannel openSegment(Path segmentFile) throws IOException {
+        return FileChannel.open(segmentFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    private static void writeFully(FileChannel target, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    private void truncateTornTail() throws IOException {
+        long size = channel.size();
+        long end = size;
+        ByteBuffer single = ByteBuffer.allocate(1);
+        while (end > 0) {
+            single.clear();
+            channel.read(single, end - 1);
+            if (single.get(0) == LINE_END) {
+                break;
+            }
+            end--;
+        }
+        if (end < size) {
+            log.warn("Журнал {} обрезан до {} байт: последняя запись не была дописана", file, end);
+            channel.truncate(end);
+        }
+    }
+}
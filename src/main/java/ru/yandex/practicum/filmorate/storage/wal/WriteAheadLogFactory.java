@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+@Component
+public class WriteAheadLogFactory {
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long syncIntervalMs;
+
+    public WriteAheadLogFactory(@Value("${filmorate.wal.enabled:false}") boolean enabled,
+                                @Value("${filmorate.wal.directory:data/wal}") String directory,
+                                @Value("${filmorate.wal.sync-interval-ms:5}") long syncIntervalMs) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.syncIntervalMs = syncIntervalMs;
+    }
+
+    public WriteAheadLog open(String name) {
+        if (!enabled) {
+            return WriteAheadLog.disabled();
+        }
+        try {
+            return new WriteAheadLog(directory, name, syncIntervalMs);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть журнал " + name, e);
+        }
+    }
+}
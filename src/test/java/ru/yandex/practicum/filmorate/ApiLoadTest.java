@@ -0,0 +1,244 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+@Tag("load")
+public class ApiLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 256);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 3);
+    private static final int MEASURE_SECONDS = Integer.getInteger("load.seconds", 10);
+    private static final int USERS = Integer.getInteger("load.users", 1000);
+    private static final int FILMS = Integer.getInteger("load.films", 1000);
+    private static final int FRIENDS_PER_USER = Integer.getInteger("load.friends-per-user", 20);
+    private static final String PROFILES = System.getProperty("load.profiles", "");
+    private static final boolean WAL = Boolean.parseBoolean(System.getProperty("load.wal", "true"));
+    private static final HttpClient CLIENT = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    @Test
+    public void shouldCompareThreadModesAndReactiveApi() throws Exception {
+        List<String> report = new ArrayList<>();
+        report.add(header());
+        for (String mode : List.of("platform", "virtual")) {
+            List<String> profiles = mode.equals("virtual") ? List.of("virtual") : List.of();
+            try (ConfigurableApplicationContext context = start(mode, profiles)) {
+                measure(report, mode, scenarios(context, List.of("", "/reactive")));
+            }
+        }
+        System.out.println(String.join(System.lineSeparator(), report));
+    }
+
+    @Test
+    public void shouldCompareHttpLogModes() throws Exception {
+        List<String> report = new ArrayList<>();
+        report.add(header());
+        PrintStream console = System.out;
+        Path logFile = Files.createTempFile("filmorate-load-http", ".log");
+        for (String mode : List.of("off", "sampled", "full")) {
+            List<String> profiles = switch (mode) {
+                case "sampled" -> List.of("http-log");
+                case "full" -> List.of("http-debug");
+                default -> List.of();
+            };
+            try (PrintStream logSink = new PrintStream(new BufferedOutputStream(Files.newOutputStream(logFile,
+                    StandardOpenOption.APPEND)), false, StandardCharsets.UTF_8)) {
+                System.setOut(logSink);
+                try (ConfigurableApplicationContext context = start("log-" + mode, profiles)) {
+                    measure(report, "log-" + mode, scenarios(context, List.of("")));
+                }
+            } finally {
+                System.setOut(console);
+            }
+        }
+        console.println("HTTP log: " + logFile + ", " + Files.size(logFile) + " bytes");
+        console.println(String.join(System.lineSeparator(), report));
+    }
+
+    private static String header() {
+        return String.format("%-11s %-31s %10s %9s %9s %7s", "mode", "scenario", "req/s", "p50 ms", "p99 ms",
+                "errors");
+    }
+
+    private static Map<String, LongFunction<HttpRequest>> scenarios(ConfigurableApplicationContext context,
+                                                                    List<String> prefixes) throws Exception {
+        String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        seed(CLIENT, baseUrl);
+
+        AtomicLong likeSequence = new AtomicLong();
+        Map<String, LongFunction<HttpRequest>> scenarios = new LinkedHashMap<>();
+        for (String prefix : prefixes) {
+            scenarios.put("GET " + prefix + "/films/popular", i -> HttpRequest.newBuilder(
+                    URI.create(baseUrl + prefix + "/films/popular?count=10")).GET().build());
+            scenarios.put("GET " + prefix + "/users/{id}/friends", i -> HttpRequest.newBuilder(
+                    URI.create(baseUrl + prefix + "/users/" + (1 + ThreadLocalRandom.current().nextInt(USERS)) +
+                            "/friends")).GET().build());
+            scenarios.put("PUT " + prefix + "/films/{id}/like", i -> {
+                long pair = likeSequence.getAndIncrement();
+                return HttpRequest.newBuilder(URI.create(baseUrl + prefix + "/films/" + (1 + pair % FILMS) +
+                        "/like/" + (1 + (pair / FILMS) % USERS))).PUT(HttpRequest.BodyPublishers.noBody()).build();
+            });
+        }
+        return scenarios;
+    }
+
+    private static void measure(List<String> report, String mode, Map<String, LongFunction<HttpRequest>> scenarios)
+            throws InterruptedException {
+        for (Map.Entry<String, LongFunction<HttpRequest>> scenario : scenarios.entrySet()) {
+            run(CLIENT, scenario.getValue(), WARMUP_SECONDS);
+            Result result = run(CLIENT, scenario.getValue(), MEASURE_SECONDS);
+            report.add(String.format(Locale.ROOT, "%-11s %-31s %10.0f %9.2f %9.2f %7d", mode,
+                    scenario.getKey(), result.throughput(), result.percentileMs(0.50),
+                    result.percentileMs(0.99), result.errors()));
+            Assertions.assertEquals(0, result.errors(), mode + " " + scenario.getKey());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String name, List<String> modeProfiles) throws IOException {
+        List<String> profiles = new ArrayList<>();
+        if (!PROFILES.isBlank()) {
+            profiles.add(PROFILES);
+        }
+        profiles.addAll(modeProfiles);
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.profiles.active=" + String.join(",", profiles),
+                        "spring.datasource.url=jdbc:h2:mem:load-" + name + ";DB_CLOSE_DELAY=-1",
+                        "filmorate.wal.enabled=" + WAL,
+                        "filmorate.wal.directory=" + Files.createTempDirectory("filmorate-load-wal"),
+                        "filmorate.snapshot.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private static void seed(HttpClient client, String baseUrl) throws Exception {
+        StringJoiner users = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < USERS; i++) {
+            users.add("{\"login\":\"load" + i + "\",\"email\":\"load" + i + "@yandex.ru\",\"birthday\":\"1990-01-01\"}");
+        }
+        post(client, baseUrl + "/users/import", users.toString());
+
+        StringJoiner films = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < FILMS; i++) {
+            films.add("{\"name\":\"Film " + i + "\",\"description\":\"Load\",\"releaseDate\":\"2000-01-01\"," +
+                    "\"duration\":100}");
+        }
+        post(client, baseUrl + "/films/import", films.toString());
+
+        StringJoiner friendships = new StringJoiner(",", "[", "]");
+        for (int user = 1; user <= USERS; user++) {
+            for (int offset = 1; offset <= FRIENDS_PER_USER / 2; offset++) {
+                friendships.add("{\"userId\":" + user + ",\"friendId\":" + (1 + (user - 1 + offset) % USERS) + "}");
+            }
+        }
+        post(client, baseUrl + "/users/friends/batch", friendships.toString());
+    }
+
+    private static void post(HttpClient client, String url, String body) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), response.body());
+    }
+
+    private static Result run(HttpClient client, LongFunction<HttpRequest> requests, int seconds)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        Recorder[] recorders = new Recorder[CONCURRENCY];
+        Thread[] workers = new Thread[CONCURRENCY];
+        long started = System.nanoTime();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            Recorder recorder = new Recorder();
+            recorders[i] = recorder;
+            workers[i] = Thread.ofVirtual().start(() -> {
+                long sequence = 0;
+                while (System.nanoTime() < deadline) {
+                    long requestStart = System.nanoTime();
+                    try {
+                        int status = client.send(requests.apply(sequence++), HttpResponse.BodyHandlers.discarding())
+                                .statusCode();
+                        if (status >= 400) {
+                            recorder.errors++;
+                        }
+                    } catch (IOException e) {
+                        recorder.errors++;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    recorder.record(System.nanoTime() - requestStart);
+                }
+            });
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - started;
+
+        int total = 0;
+        long errors = 0;
+        for (Recorder recorder : recorders) {
+            total += recorder.size;
+            errors += recorder.errors;
+        }
+        long[] latencies = new long[total];
+        int position = 0;
+        for (Recorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, latencies, position, recorder.size);
+            position += recorder.size;
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, elapsed, errors);
+    }
+
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        void record(long nanos) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+        }
+    }
+
+    private record Result(long[] latencies, long elapsedNanos, long errors) {
+
+        double throughput() {
+            return latencies.length * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        double percentileMs(double quantile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -3,25 +3,73 @@ package ru.yandex.practicum.filmorate;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.audit.AuditEvent;
+import ru.yandex.practicum.filmorate.audit.AuditLog;
 import ru.yandex.practicum.filmorate.controller.FilmController;
 import ru.yandex.practicum.filmorate.controller.UserController;
+import ru.yandex.practicum.filmorate.event.DomainEvent;
+import ru.yandex.practicum.filmorate.event.DomainEventBus;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmSearchService;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.FriendshipService;
 import ru.yandex.practicum.filmorate.service.LikeService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
 import ru.yandex.practicum.filmorate.service.UserService;
-
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.snapshot.SnapshotStore;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLogFactory;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
 class FilmorateApplicationTests {
     private static final LocalDate birthday = LocalDate.of(2001, 10, 9);
 
@@ -31,17 +79,27 @@ class FilmorateApplicationTests {
     private FilmService filmService;
     @Autowired
     private LikeService likeService;
+    @Autowired
+    private FilmSearchService filmSearchService;
+    @Autowired
+    private FilmStorage filmStorage;
 
     private UserController userController;
     @Autowired
     private FriendshipService friendshipService;
     @Autowired
     private UserService userService;
+    @Autowired
+    private RecommendationService recommendationService;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @BeforeEach
     public void setUp() {
-        this.userController = new UserController(userService, friendshipService);
-        this.filmController = new FilmController(filmService, likeService);
+        this.userController = new UserController(userService, friendshipService, recommendationService);
+        this.filmController = new FilmController(filmService, likeService, filmSearchService);
         filmService.clearFilm();
         userService.clearUser();
     }
@@ -392,6 +450,8 @@ class FilmorateApplicationTests {
 
         List<User> mutualFriends = userController.getListMutualFriend(user1.getId(), user2.getId());
         Assertions.assertTrue(mutualFriends.contains(user3), "Общим другом должен быть User3");
+        Assertions.assertEquals(Set.of(user2.getId(), user3.getId()), userController.findById(user1.getId()).getFriends(),
+                "Поиск общих друзей не должен изменять список друзей пользователя");
     }
 
     @Test
@@ -468,6 +528,253 @@ class FilmorateApplicationTests {
         Assertions.assertEquals(1, listFilms.size(), "Список должен содержать 1 фильм");
     }
 
+    @Test
+    public void shouldPageFilmsByIdCursor() {
+        LocalDate localDate = LocalDate.of(1997, 12, 16);
+        for (int i = 0; i < 5; i++) {
+            filmController.create(Film.builder()
+                    .name("Film " + i)
+                    .description("Description Long")
+                    .releaseDate(localDate)
+                    .duration(190L)
+                    .build());
+        }
+
+        List<Film> firstPage = filmController.pageListFilm(2, null);
+        List<Film> secondPage = filmController.pageListFilm(2, firstPage.get(1).getId());
+        List<Film> lastPage = filmController.pageListFilm(2, secondPage.get(1).getId());
+
+        Assertions.assertEquals(List.of(1L, 2L), firstPage.stream().map(Film::getId).toList());
+        Assertions.assertEquals(List.of(3L, 4L), secondPage.stream().map(Film::getId).toList());
+        Assertions.assertEquals(List.of(5L), lastPage.stream().map(Film::getId).toList());
+        Assertions.assertThrows(ValidationException.class, () -> filmController.pageListFilm(0, null));
+    }
+
+    @Test
+    public void shouldImportFilmsUsersLikesAndFriendshipsInBulk() throws Exception {
+        String films = """
+                {"name":"Titanic","description":"Description Long","releaseDate":"1997-12-16","duration":190}
+                {"name":"","description":"Description Long","releaseDate":"1997-12-16","duration":190}
+                {"name":"Robocop","description":"Description Long","releaseDate":"1987-07-17","duration":100}
+                """;
+        List<ImportResult> filmResults = readImportResults(mockMvc.perform(post("/films/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(films))
+                .andExpect(status().isOk())
+                .andReturn());
+        Assertions.assertEquals(List.of(1L, 2L), filmResults.stream()
+                .filter(result -> result.getError() == null)
+                .map(ImportResult::getId)
+                .toList());
+        Assertions.assertEquals("Имя не должно быть пустым", filmResults.get(1).getError());
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(User.builder()
+                    .login("user" + i)
+                    .email("user" + i + "@yandex.ru")
+                    .birthday(birthday)
+                    .build());
+        }
+        List<ImportResult> userResults = userController.importUsers(users);
+        Assertions.assertEquals(List.of(1L, 2L, 3L), userResults.stream().map(ImportResult::getId).toList());
+        Assertions.assertEquals("user0", userService.findById(1L).getName());
+
+        List<ImportResult> likeResults = filmController.applyLikes(List.of(
+                Like.builder().filmId(2L).userId(1L).build(),
+                Like.builder().filmId(2L).userId(2L).build(),
+                Like.builder().filmId(2L).userId(2L).build(),
+                Like.builder().filmId(9L).userId(1L).build(),
+                Like.builder().filmId(1L).userId(9L).build()));
+        Assertions.assertEquals(List.of(0, 1), likeResults.stream()
+                .filter(result -> result.getError() == null)
+                .map(ImportResult::getIndex)
+                .toList());
+        Assertions.assertEquals(List.of(2L, 1L), filmController.topFilms(2).stream().map(Film::getId).toList());
+
+        List<ImportResult> friendResults = userController.applyFriendships(List.of(
+                Friendship.builder().userId(1L).friendId(2L).build(),
+                Friendship.builder().userId(2L).friendId(1L).build(),
+                Friendship.builder().userId(3L).friendId(2L).build()));
+        Assertions.assertNull(friendResults.get(0).getError());
+        Assertions.assertEquals("Пользователь уже является другом", friendResults.get(1).getError());
+        Assertions.assertEquals(Set.of(1L, 3L), userService.findById(2L).getFriends());
+    }
+
+    @Test
+    public void shouldKeepImportedChunksWhenNdjsonLineIsMalformed() throws Exception {
+        int valid = 10_005;
+        StringBuilder films = new StringBuilder();
+        for (int i = 0; i < valid; i++) {
+            films.append("{\"name\":\"Film ").append(i)
+                    .append("\",\"description\":\"Description\",\"releaseDate\":\"2000-01-01\",\"duration\":100}\n");
+        }
+        films.append("{\"name\":\"Broken\",\n");
+
+        List<ImportResult> results = readImportResults(mockMvc.perform(post("/films/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(films.toString()))
+                .andExpect(status().isOk())
+                .andReturn());
+
+        Assertions.assertEquals(valid + 1, results.size());
+        Assertions.assertEquals(valid, results.stream().filter(result -> result.getError() == null).count());
+        ImportResult broken = results.get(valid);
+        Assertions.assertEquals(valid, broken.getIndex());
+        Assertions.assertNull(broken.getId());
+        Assertions.assertTrue(broken.getError().startsWith("Некорректная запись NDJSON"), broken.getError());
+        Assertions.assertEquals(valid, filmService.getAllFilms().size(), "Загруженные части не должны теряться");
+    }
+
+    @Test
+    public void shouldApplyLikeAndFriendBatches() throws Exception {
+        filmController.create(Film.builder()
+                .name("Titanic")
+                .description("Description Long")
+                .releaseDate(LocalDate.of(1997, 12, 16))
+                .duration(190L)
+                .build());
+        for (int i = 0; i < 3; i++) {
+            userController.create(User.builder()
+                    .login("user" + i)
+                    .email("user" + i + "@yandex.ru")
+                    .birthday(birthday)
+                    .build());
+        }
+        likeService.addLike(1L, 3L);
+
+        String likes = """
+                [{"filmId":1,"userId":1},
+                 {"filmId":1,"userId":2},
+                 {"filmId":1,"userId":2,"action":"REMOVE"},
+                 {"filmId":1,"userId":3,"action":"REMOVE"},
+                 {"filmId":1,"userId":3,"action":"REMOVE"}]
+                """;
+        List<ImportResult> likeResults = readImportResults(mockMvc.perform(post("/films/likes/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(likes))
+                .andExpect(status().isOk())
+                .andReturn());
+        Assertions.assertEquals(List.of(4), likeResults.stream()
+                .filter(result -> result.getError() != null)
+                .map(ImportResult::getIndex)
+                .toList());
+        Film film = filmController.topFilms(1).get(0);
+        Assertions.assertEquals(1, film.getLikes());
+        Assertions.assertEquals(Set.of(1L), film.getUserLikes());
+
+        String friends = """
+                [{"userId":1,"friendId":2},
+                 {"userId":1,"friendId":3},
+                 {"userId":2,"friendId":1,"action":"REMOVE"},
+                 {"userId":2,"friendId":3,"action":"REMOVE"}]
+                """;
+        List<ImportResult> friendResults = readImportResults(mockMvc.perform(post("/users/friends/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(friends))
+                .andExpect(status().isOk())
+                .andReturn());
+        Assertions.assertTrue(friendResults.subList(0, 3).stream().allMatch(result -> result.getError() == null));
+        Assertions.assertEquals("Пользователь не является другом", friendResults.get(3).getError(),
+                "Удаление несуществующей дружбы не должно считаться изменением");
+        Assertions.assertEquals(Set.of(3L), userService.findById(1L).getFriends());
+        Assertions.assertEquals(Set.of(), userService.findById(2L).getFriends());
+    }
+
+    private List<ImportResult> readImportResults(MvcResult result) throws Exception {
+        return List.of(objectMapper.readValue(result.getResponse().getContentAsByteArray(), ImportResult[].class));
+    }
+
+    @Test
+    public void shouldStreamFilmsFromReactiveApi() throws Exception {
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            films.add(Film.builder()
+                    .name("Film " + i)
+                    .description("Description Long")
+                    .releaseDate(LocalDate.of(1997, 12, 16))
+                    .duration(190L)
+                    .build());
+        }
+        filmController.importFilms(films);
+
+        MvcResult started = mockMvc.perform(get("/reactive/films").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        started.getAsyncResult(10_000);
+        String[] lines = started.getResponse().getContentAsString().split("\n");
+        Assertions.assertEquals(1500, lines.length, "Поток должен пройти все страницы хранилища");
+        Assertions.assertTrue(lines[1499].startsWith("{\"id\":1500,"));
+
+        MvcResult missing = mockMvc.perform(get("/reactive/films/9999"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(missing))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void shouldExposeMetricsInPrometheusFormat() throws Exception {
+        filmController.create(Film.builder()
+                .name("Titanic")
+                .description("Description Long")
+                .releaseDate(LocalDate.of(1997, 12, 16))
+                .duration(190L)
+                .build());
+        userController.create(User.builder()
+                .login("metrics")
+                .email("metrics@yandex.ru")
+                .birthday(birthday)
+                .build());
+        mockMvc.perform(put("/films/1/like/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/popular")).andExpect(status().isOk());
+
+        String metrics = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        Assertions.assertTrue(metrics.contains("http_server_requests_seconds_bucket{"), "Нет гистограммы запросов");
+        Assertions.assertTrue(metrics.lines().anyMatch(line -> line.startsWith("http_server_requests_seconds{")
+                && line.contains("uri=\"/films/popular\"") && line.contains("quantile=\"0.99\"")));
+        Assertions.assertTrue(metrics.lines().anyMatch(line -> line.startsWith("filmorate_service_seconds_count{")
+                && line.contains("class=\"ru.yandex.practicum.filmorate.service.LikeService\"")
+                && line.contains("method=\"addLike\"")));
+        Assertions.assertTrue(metrics.contains("filmorate_service_seconds_bucket{"), "Нет гистограммы сервисов");
+        Assertions.assertTrue(metrics.contains("filmorate_storage_size{entity=\"films\",} 1.0"));
+        Assertions.assertTrue(metrics.contains("filmorate_storage_size{entity=\"users\",} 1.0"));
+        Assertions.assertTrue(metrics.contains("filmorate_likes_total{operation=\"add\",}"));
+        Assertions.assertTrue(metrics.contains("filmorate_popularity_fold_seconds_count"));
+    }
+
+    @Test
+    public void shouldExportFilmsAsNdjson() throws Exception {
+        LocalDate localDate = LocalDate.of(1997, 12, 16);
+        for (int i = 0; i < 3; i++) {
+            filmController.create(Film.builder()
+                    .name("Film " + i)
+                    .description("Description Long")
+                    .releaseDate(localDate)
+                    .duration(190L)
+                    .build());
+        }
+
+        MvcResult started = mockMvc.perform(get("/films/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String[] lines = body.split("\n");
+        Assertions.assertEquals(3, lines.length, "Каждый фильм должен быть выгружен отдельной строкой");
+        Assertions.assertTrue(lines[0].startsWith("{\"id\":1,"), "Фильмы должны выгружаться по возрастанию ID");
+        Assertions.assertTrue(body.endsWith("\n"), "Выгрузка должна заканчиваться переводом строки");
+    }
+
     @Test
     public void shouldntNameFilmToBeEmpty() {
         LocalDate localDate = LocalDate.of(1997, 12, 16);
@@ -639,5 +946,494 @@ class FilmorateApplicationTests {
         Assertions.assertEquals("Titanic", popularFilm.get(1).getName());
         Assertions.assertEquals("Robokop", popularFilm.get(2).getName());
     }
-}
 
+    @Test
+    public void shouldNotLoseConcurrentLikes() throws Exception {
+        int threads = 64;
+        LocalDate localDate = LocalDate.of(1997, 12, 16);
+        Film film = filmController.create(Film.builder()
+                .name("Titanic")
+                .description("Description Long")
+                .releaseDate(localDate)
+                .duration(180L)
+                .build());
+
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            userIds.add(userController.create(User.builder()
+                    .login("user" + i)
+                    .email("user" + i + "@yandex.ru")
+                    .birthday(birthday)
+                    .build()).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Long userId : userIds) {
+                futures.add(executor.submit(() -> likeService.addLike(film.getId(), userId)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Film likedFilm = filmService.findById(film.getId());
+        Assertions.assertEquals(threads, likedFilm.getUserLikes().size(), "Ни один лайк не должен потеряться");
+        Assertions.assertEquals(threads, likedFilm.getLikes(), "Счётчик лайков должен совпадать с числом лайков");
+    }
+
+    @Test
+    public void shouldNotLoseConcurrentFriendships() throws Exception {
+        int threads = 64;
+        User user = userController.create(User.builder()
+                .login("Daniel")
+                .email("dany.smol@yandex.ru")
+                .birthday(birthday)
+                .build());
+
+        List<Long> friendIds = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            friendIds.add(userController.create(User.builder()
+                    .login("friend" + i)
+                    .email("friend" + i + "@yandex.ru")
+                    .birthday(birthday)
+                    .build()).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Long friendId : friendIds) {
+                futures.add(executor.submit(() -> friendshipService.addFriends(friendId, user.getId())));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertEquals(threads, userService.findById(user.getId()).getFriends().size(),
+                "Ни одна дружба не должна потеряться");
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedForPopularFilmsUntilLikesChange() throws Exception {
+        LocalDate localDate = LocalDate.of(1997, 12, 16);
+        Film film = filmService.createFilm(Film.builder()
+                .name("Titanic")
+                .description("Description Long")
+                .releaseDate(localDate)
+                .duration(180L)
+                .build());
+        User user = userService.createUser(User.builder()
+                .login("Daniel")
+                .email("dany.smol@yandex.ru")
+                .birthday(birthday)
+                .build());
+
+        MvcResult first = mockMvc.perform(get("/films/popular").param("count", "5"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotNull(eTag, "Ответ должен содержать ETag");
+
+        MvcResult cached = mockMvc.perform(get("/films/popular").param("count", "5"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Assertions.assertEquals(first.getResponse().getContentAsString(), cached.getResponse().getContentAsString(),
+                "Повторный запрос должен вернуть тот же ответ из кэша");
+
+        mockMvc.perform(get("/films/popular").param("count", "5").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        likeService.addLike(film.getId(), user.getId());
+
+        MvcResult afterLike = mockMvc.perform(get("/films/popular").param("count", "5")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn();
+        Assertions.assertNotEquals(eTag, afterLike.getResponse().getHeader(HttpHeaders.ETAG),
+                "После лайка ETag должен измениться");
+        Assertions.assertTrue(afterLike.getResponse().getContentAsString().contains("\"likes\":1"),
+                "Ответ должен содержать обновлённое число лайков");
+    }
+
+    @Test
+    public void shouldKeepPopularFilmsETagUntilServedRankingChanges() throws Exception {
+        LocalDate localDate = LocalDate.of(1997, 12, 16);
+        Film top = filmService.createFilm(Film.builder()
+                .name("Titanic")
+                .description("Description Long")
+                .releaseDate(localDate)
+                .duration(180L)
+                .build());
+        Film other = filmService.createFilm(Film.builder()
+                .name("Robokop")
+                .description("Description")
+                .releaseDate(localDate)
+                .duration(120L)
+                .build());
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(userService.createUser(User.builder()
+                    .login("Daniel" + i)
+                    .email("dany" + i + "@yandex.ru")
+                    .birthday(birthday)
+                    .build()));
+        }
+        likeService.addLike(top.getId(), users.get(0).getId());
+        likeService.addLike(top.getId(), users.get(1).getId());
+
+        String eTag = mockMvc.perform(get("/films/popular").param("count", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        likeService.addLike(other.getId(), users.get(2).getId());
+        mockMvc.perform(get("/films/popular").param("count", "1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        userService.deleteUserById(users.get(0).getId());
+        MvcResult afterDelete = mockMvc.perform(get("/films/popular").param("count", "1")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn();
+        Assertions.assertNotEquals(eTag, afterDelete.getResponse().getHeader(HttpHeaders.ETAG),
+                "После удаления пользователя ETag должен измениться");
+    }
+
+    @Test
+    public void shouldRecoverFilmsFromSnapshotAndWriteAheadLog(@TempDir Path dataDirectory) throws Exception {
+        LocalDate localDate = LocalDate.of(1997, 12, 16);
+        Path walDirectory = dataDirectory.resolve("wal");
+        WriteAheadLogFactory walFactory = new WriteAheadLogFactory(true, walDirectory.toString(), 2);
+        SnapshotStore snapshotStore = new SnapshotStore(true, dataDirectory.resolve("snapshot").toString());
+
+        InMemoryFilmStorage storage = new InMemoryFilmStorage(walFactory, snapshotStore, objectMapper, DomainEventBus.disabled());
+        storage.recover();
+        Film titanic = storage.create(Film.builder()
+                .name("Titanic")
+                .description("Description Long")
+                .releaseDate(localDate)
+                .duration(190L)
+                .build());
+        Film robocop = storage.create(Film.builder()
+                .name("Robocop")
+                .description("Description Long")
+                .releaseDate(localDate)
+                .duration(100L)
+                .build());
+        storage.snapshot();
+        Assertions.assertFalse(Files.exists(walDirectory.resolve("films.1.wal")),
+                "Журнал, покрытый снимком, должен быть удалён");
+
+        titanic.getUserLikes().add(7L);
+        titanic.setLikes(1);
+        storage.update(titanic);
+        Assertions.assertEquals(2, storage.addLike(titanic.getId(), 8L));
+        Assertions.assertEquals(2, storage.findById(titanic.getId()).getLikes());
+        Assertions.assertEquals(3, storage.addLike(titanic.getId(), 9L));
+        Assertions.assertEquals(3, storage.update(titanic).getLikes(), "Обновление не должно терять лайки");
+        storage.deleteFilmById(robocop.getId());
+        storage.close();
+
+        Files.writeString(walDirectory.resolve("films.2.wal"), "UPDATE\t1\t{\"id\":1,", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        InMemoryFilmStorage recovered = new InMemoryFilmStorage(walFactory, snapshotStore, objectMapper, DomainEventBus.disabled());
+        recovered.recover();
+        try {
+            Film restored = recovered.findById(titanic.getId());
+            Assertions.assertEquals(titanic, restored, "Фильм должен восстановиться из журнала");
+            Assertions.assertThrows(NotFoundException.class, () -> recovered.findById(robocop.getId()));
+            Assertions.assertEquals(List.of(titanic.getId()), recovered.getPopularFilms(10).stream()
+                    .map(Film::getId)
+                    .toList());
+
+            Film created = recovered.create(Film.builder()
+                    .name("Interstellar")
+                    .description("Description Long")
+                    .releaseDate(localDate)
+                    .duration(169L)
+                    .build());
+            Assertions.assertEquals(robocop.getId() + 1, created.getId(), "ID не должны переиспользоваться");
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    public void shouldRecoverUsersAndFriendshipsFromSnapshotAndWriteAheadLog(@TempDir Path dataDirectory) {
+        Path walDirectory = dataDirectory.resolve("wal");
+        WriteAheadLogFactory walFactory = new WriteAheadLogFactory(true, walDirectory.toString(), 2);
+        SnapshotStore snapshotStore = new SnapshotStore(true, dataDirectory.resolve("snapshot").toString());
+
+        InMemoryUserStorage storage = new InMemoryUserStorage(walFactory, snapshotStore, objectMapper,
+                DomainEventBus.disabled());
+        storage.recover();
+        List<User> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(storage.create(User.builder()
+                    .login("user" + i)
+                    .email("user" + i + "@yandex.ru")
+                    .birthday(birthday)
+                    .build()));
+        }
+        long first = created.get(0).getId();
+        long second = created.get(1).getId();
+        long third = created.get(2).getId();
+        long fourth = created.get(3).getId();
+        long fifth = created.get(4).getId();
+        storage.addFriend(first, second);
+        storage.addFriend(first, third);
+        storage.snapshot();
+        Assertions.assertFalse(Files.exists(walDirectory.resolve("users.1.wal")),
+                "Журнал, покрытый снимком, должен быть удалён");
+
+        storage.removeFriend(first, second);
+        storage.applyFriendships(List.of(
+                Friendship.builder().userId(fourth).friendId(third).build(),
+                Friendship.builder().userId(first).friendId(third).action(BatchAction.REMOVE).build(),
+                Friendship.builder().userId(second).friendId(fourth).build()));
+        storage.deleteUserById(fifth);
+        storage.close();
+
+        InMemoryUserStorage recovered = new InMemoryUserStorage(walFactory, snapshotStore, objectMapper,
+                DomainEventBus.disabled());
+        recovered.recover();
+        try {
+            Assertions.assertEquals(4, recovered.count());
+            Assertions.assertThrows(NotFoundException.class, () -> recovered.findById(fifth));
+            Assertions.assertEquals(Set.of(), Set.copyOf(recovered.findById(first).getFriends()),
+                    "FRIEND из снимка и UNFRIEND из журнала должны примениться");
+            Assertions.assertEquals(Set.of(fourth), Set.copyOf(recovered.findById(third).getFriends()));
+            Assertions.assertEquals(Set.of(third, second), Set.copyOf(recovered.findById(fourth).getFriends()));
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    public void shouldWriteAuditEventsToRotatingCompressedFiles(@TempDir Path auditDirectory) throws Exception {
+        AuditLog auditLog = new AuditLog(true, auditDirectory.toString(), 1024, 64, 1, 1024, 100,
+                AuditLog.Overflow.BLOCK, 1000);
+        for (long userId = 1; userId <= 500; userId++) {
+            auditLog.record(userId % 2 == 0 ? AuditEvent.LIKE : AuditEvent.FRIEND, userId, userId + 1);
+        }
+        auditLog.close();
+
+        Assertions.assertEquals(500, auditLog.accepted());
+        Assertions.assertEquals(0, auditLog.dropped());
+        Assertions.assertEquals(500, auditLog.written());
+
+        List<Path> files;
+        try (Stream<Path> listed = Files.list(auditDirectory)) {
+            files = listed.sorted(Comparator.comparingLong(path ->
+                    Long.parseLong(path.getFileName().toString().split("\\.")[1]))).toList();
+        }
+        Assertions.assertTrue(files.size() > 1, "Журнал аудита должен ротироваться по размеру");
+        List<String> lines = new ArrayList<>();
+        for (Path file : files) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+                reader.lines().forEach(lines::add);
+            }
+        }
+        Assertions.assertEquals(500, lines.size());
+        Assertions.assertTrue(lines.get(0).endsWith("\tFRIEND\t1\t2"), lines.get(0));
+        Assertions.assertTrue(lines.get(499).endsWith("\tLIKE\t500\t501"), lines.get(499));
+
+        AuditLog saturated = new AuditLog(true, auditDirectory.toString(), 2, 64, 60_000, 1024, 100,
+                AuditLog.Overflow.DROP, 0);
+        for (long userId = 1; userId <= 100; userId++) {
+            saturated.record(AuditEvent.UNLIKE, userId, 1);
+        }
+        saturated.close();
+        Assertions.assertTrue(saturated.dropped() > 0, "Переполненный буфер должен отбрасывать события");
+        Assertions.assertEquals(100, saturated.accepted() + saturated.dropped());
+        Assertions.assertEquals(saturated.accepted(), saturated.written());
+    }
+
+    @Test
+    public void shouldRecommendFilmsLikedByClosestUser() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            users.add(userController.create(User.builder()
+                    .name("User " + i)
+                    .login("user" + i)
+                    .email("user" + i + "@yandex.ru")
+                    .birthday(birthday)
+                    .build()));
+        }
+        List<Film> films = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            films.add(filmController.create(Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .releaseDate(LocalDate.of(2000, 1, i))
+                    .duration(100L)
+                    .build()));
+        }
+        likeService.addLike(films.get(0).getId(), users.get(0).getId());
+        likeService.addLike(films.get(1).getId(), users.get(0).getId());
+        likeService.addLike(films.get(0).getId(), users.get(1).getId());
+        likeService.addLike(films.get(1).getId(), users.get(1).getId());
+        likeService.addLike(films.get(2).getId(), users.get(1).getId());
+        likeService.addLike(films.get(2).getId(), users.get(2).getId());
+
+        List<Film> recommendations = List.of();
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (recommendations.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            recommendations = userController.getRecommendations(users.get(0).getId());
+        }
+
+        Assertions.assertEquals(1, recommendations.size(), "Должен быть рекомендован один фильм");
+        Assertions.assertEquals(films.get(2).getId(), recommendations.get(0).getId());
+        Assertions.assertThrows(NotFoundException.class, () -> userController.getRecommendations(9999L));
+    }
+
+    @Test
+    public void shouldDeliverDomainEventsInPublicationOrder() throws Exception {
+        DomainEventBus eventBus = new DomainEventBus(true, 4, 2, 1000);
+        List<DomainEvent> received = new CopyOnWriteArrayList<>();
+        eventBus.subscribe(received::addAll);
+        eventBus.start();
+        Assertions.assertThrows(IllegalStateException.class, () -> eventBus.subscribe(events -> {
+        }));
+
+        List<DomainEvent> published = new ArrayList<>();
+        for (long filmId = 1; filmId <= 100; filmId++) {
+            published.add(new DomainEvent.LikeAdded(filmId, filmId + 1));
+            published.add(new DomainEvent.FilmUpdated(filmId));
+        }
+        published.forEach(eventBus::publish);
+        eventBus.stop();
+
+        Assertions.assertEquals(published, received, "События должны доставляться в порядке публикации");
+        Assertions.assertEquals(published.size(), eventBus.dispatched());
+        Assertions.assertEquals(0, eventBus.pending());
+    }
+
+    @Test
+    public void shouldHoldPublishersInsteadOfDroppingWhenQueueIsFull() throws Exception {
+        DomainEventBus eventBus = new DomainEventBus(true, 1, 1, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        List<DomainEvent> received = new CopyOnWriteArrayList<>();
+        eventBus.subscribe(events -> {
+            received.addAll(events);
+            if (events.get(0) instanceof DomainEvent.FilmsCleared) {
+                for (long filmId = 1; filmId <= 3; filmId++) {
+                    eventBus.publish(new DomainEvent.FilmDeleted(filmId));
+                }
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        eventBus.start();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            eventBus.publish(new DomainEvent.FilmsCleared());
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (received.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            eventBus.publish(new DomainEvent.UsersCleared());
+
+            Future<?> blockedPublish = executor.submit(() -> eventBus.publish(new DomainEvent.FilmDeleted(4)));
+            Thread.sleep(200);
+            Assertions.assertFalse(blockedPublish.isDone(), "Публикация должна ждать места в очереди");
+
+            release.countDown();
+            blockedPublish.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            eventBus.stop();
+        }
+        Assertions.assertEquals(0, eventBus.dropped(), "События не должны теряться при переполнении очереди");
+        Assertions.assertEquals(6, eventBus.dispatched());
+        Assertions.assertEquals(List.of(new DomainEvent.FilmsCleared(), new DomainEvent.FilmDeleted(1),
+                new DomainEvent.FilmDeleted(2), new DomainEvent.FilmDeleted(3), new DomainEvent.UsersCleared(),
+                new DomainEvent.FilmDeleted(4)), received);
+    }
+
+    @Test
+    public void shouldSearchFilmsByNameAndDescriptionPrefixes() throws Exception {
+        User user = userController.create(User.builder()
+                .name("Smolcap")
+                .login("Daniel")
+                .email("dany.smol@yandex.ru")
+                .birthday(birthday)
+                .build());
+        Film titanic = filmController.create(Film.builder()
+                .name("Титаник")
+                .description("Фильм о крушении лайнера")
+                .releaseDate(LocalDate.of(1997, 12, 19))
+                .duration(194L)
+                .build());
+        Film cruise = filmController.create(Film.builder()
+                .name("Круиз")
+                .description("Комедия на борту лайнера")
+                .releaseDate(LocalDate.of(2005, 6, 1))
+                .duration(95L)
+                .build());
+        Film liner = filmController.create(Film.builder()
+                .name("Лайнер")
+                .description("Драма о моряках")
+                .releaseDate(LocalDate.of(2010, 3, 4))
+                .duration(120L)
+                .build());
+        likeService.addLike(cruise.getId(), user.getId());
+
+        List<Long> expected = List.of(liner.getId(), cruise.getId(), titanic.getId());
+        List<Long> found = List.of();
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!found.equals(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            found = filmController.search("лайн", 10).stream().map(Film::getId).toList();
+        }
+        Assertions.assertEquals(expected, found,
+                "Совпадение в названии важнее описания, при равенстве выше фильм с большим числом лайков");
+        Assertions.assertEquals(List.of(titanic.getId()),
+                filmController.search("КРУШ лайнер", 10).stream().map(Film::getId).toList());
+        Assertions.assertThrows(ValidationException.class, () -> filmController.search(" ,. ", 10));
+        Assertions.assertEquals(List.of(), filmController.search("ла", 10),
+                "Короткий запрос должен совпадать только с целым словом");
+        Assertions.assertEquals(List.of(cruise.getId()),
+                filmController.search("на", 10).stream().map(Film::getId).toList());
+
+        FilmSearchService capped = new FilmSearchService(filmStorage, DomainEventBus.disabled(), 100, 1, 3);
+        capped.onStart();
+        Assertions.assertEquals(List.of(cruise.getId()),
+                capped.search("лайн", 10).stream().map(Film::getId).toList(),
+                "При ограничении кандидатов поиск должен оставлять самые популярные фильмы");
+
+        titanic.setName("Айсберг");
+        titanic.setDescription("Фильм о крушении");
+        filmController.update(titanic);
+        filmController.deleteFilmById(liner.getId());
+        deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (found.size() != 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            found = filmController.search("лайн", 10).stream().map(Film::getId).toList();
+        }
+        Assertions.assertEquals(List.of(cruise.getId()), found);
+        Assertions.assertEquals(List.of(titanic.getId()),
+                filmController.search("айсб", 10).stream().map(Film::getId).toList());
+
+        MvcResult result = mockMvc.perform(get("/films/search").param("q", "круиз"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Assertions.assertTrue(result.getResponse().getContentAsString(StandardCharsets.UTF_8)
+                .contains("\"name\":\"Круиз\""));
+        mockMvc.perform(get("/films/search").param("q", "круиз").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+}
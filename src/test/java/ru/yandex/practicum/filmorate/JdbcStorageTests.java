@@ -0,0 +1,269 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FriendshipService;
+import ru.yandex.practicum.filmorate.service.LikeService;
+import ru.yandex.practicum.filmorate.storage.cache.CacheStatistics;
+import ru.yandex.practicum.filmorate.storage.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:filmorate;DB_CLOSE_DELAY=-1",
+        "filmorate.cache.flush-interval-ms=3600000"})
+@ActiveProfiles("jdbc")
+class JdbcStorageTests {
+    private static final LocalDate birthday = LocalDate.of(2001, 10, 9);
+
+    @Autowired
+    private FilmStorage filmStorage;
+    @Autowired
+    private JdbcFilmStorage jdbcFilmStorage;
+    @Autowired
+    private UserStorage userStorage;
+    @Autowired
+    private LikeService likeService;
+    @Autowired
+    private FriendshipService friendshipService;
+
+    @BeforeEach
+    public void beforeEach() {
+        filmStorage.clearFilm();
+        userStorage.clearUsers();
+    }
+
+    @Test
+    public void shouldKeepLikesAndPopularityInDatabase() {
+        Film first = filmStorage.create(film("Первый"));
+        Film second = filmStorage.create(film("Второй"));
+        User user = userStorage.create(user("first"));
+        User other = userStorage.create(user("second"));
+
+        likeService.addLike(second.getId(), user.getId());
+        likeService.addLike(second.getId(), other.getId());
+        likeService.addLike(first.getId(), user.getId());
+        likeService.deleteLike(first.getId(), user.getId());
+
+        Assertions.assertEquals(Set.of(user.getId(), other.getId()),
+                filmStorage.findById(second.getId()).getUserLikes());
+        Assertions.assertEquals(List.of(second.getId(), first.getId()),
+                filmStorage.getPopularFilms(10).stream().map(Film::getId).toList());
+        Assertions.assertEquals(List.of(second.getId()),
+                filmStorage.getAllFilms(first.getId(), 10).stream().map(Film::getId).toList());
+        Assertions.assertEquals(Set.of(user.getId(), other.getId()),
+                jdbcFilmStorage.findById(second.getId()).getUserLikes());
+        Assertions.assertEquals(2, jdbcFilmStorage.findById(second.getId()).getLikes());
+
+        Assertions.assertEquals(1, jdbcFilmStorage.addLike(first.getId(), other.getId()));
+        Assertions.assertThrows(ValidationException.class, () -> jdbcFilmStorage.addLike(first.getId(), other.getId()));
+        Assertions.assertEquals(1, jdbcFilmStorage.findById(first.getId()).getLikes());
+        Assertions.assertEquals(0, jdbcFilmStorage.removeLike(first.getId(), other.getId()));
+
+        userStorage.deleteUserById(other.getId());
+        Assertions.assertEquals(1, jdbcFilmStorage.findById(second.getId()).getLikes());
+        Assertions.assertEquals(Set.of(user.getId()), jdbcFilmStorage.findById(second.getId()).getUserLikes());
+
+        Assertions.assertThrows(NotFoundException.class, () -> filmStorage.deleteFilmById(100L));
+    }
+
+    @Test
+    public void shouldCoalesceLikesInWriteBehindCache() {
+        CachingFilmStorage cachingFilmStorage = Assertions.assertInstanceOf(CachingFilmStorage.class, filmStorage);
+        Film film = filmStorage.create(film("Кэш"));
+        User user = userStorage.create(user("cached"));
+        User other = userStorage.create(user("other"));
+
+        likeService.addLike(film.getId(), user.getId());
+        likeService.addLike(film.getId(), other.getId());
+
+        Assertions.assertSame(film, filmStorage.findById(film.getId()));
+        Assertions.assertEquals(0, jdbcFilmStorage.findById(film.getId()).getLikes());
+        Assertions.assertEquals(1, cachingFilmStorage.statistics().pendingWrites());
+
+        cachingFilmStorage.flush();
+        CacheStatistics statistics = cachingFilmStorage.statistics();
+        Assertions.assertEquals(0, statistics.pendingWrites());
+        Assertions.assertTrue(statistics.hitRatio() > 0);
+        Assertions.assertEquals(2, jdbcFilmStorage.findById(film.getId()).getLikes());
+    }
+
+    @Test
+    public void shouldDropDeletedUserLikesFromWriteBehindCache() throws InterruptedException {
+        CachingFilmStorage cachingFilmStorage = Assertions.assertInstanceOf(CachingFilmStorage.class, filmStorage);
+        Film film = filmStorage.create(film("Отложенный"));
+        User user = userStorage.create(user("kept"));
+        User deleted = userStorage.create(user("deleted"));
+
+        likeService.addLike(film.getId(), user.getId());
+        likeService.addLike(film.getId(), deleted.getId());
+        userStorage.deleteUserById(deleted.getId());
+        cachingFilmStorage.flush();
+
+        Assertions.assertEquals(0, cachingFilmStorage.statistics().pendingWrites());
+        Assertions.assertEquals(Set.of(user.getId()), jdbcFilmStorage.findById(film.getId()).getUserLikes());
+        Assertions.assertEquals(1, jdbcFilmStorage.findById(film.getId()).getLikes());
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (filmStorage.findById(film.getId()).getLikes() != 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(Set.of(user.getId()), filmStorage.findById(film.getId()).getUserLikes());
+        Assertions.assertEquals(1, filmStorage.findById(film.getId()).getLikes());
+    }
+
+    @Test
+    public void shouldWriteCachedBatchesToDatabaseInOnePass() {
+        CachingFilmStorage cachingFilmStorage = Assertions.assertInstanceOf(CachingFilmStorage.class, filmStorage);
+        Film film = filmStorage.create(film("Пакет"));
+        User user = userStorage.create(user("batch"));
+        User other = userStorage.create(user("other"));
+
+        List<ImportResult> likeResults = filmStorage.applyLikes(List.of(
+                Like.builder().filmId(film.getId()).userId(user.getId()).build(),
+                Like.builder().filmId(film.getId()).userId(other.getId()).build(),
+                Like.builder().filmId(film.getId()).userId(other.getId()).action(BatchAction.REMOVE).build(),
+                Like.builder().filmId(film.getId()).userId(user.getId()).build(),
+                Like.builder().filmId(film.getId() + 100).userId(user.getId()).build()));
+        Assertions.assertEquals(List.of(3, 4), likeResults.stream()
+                .filter(result -> result.getError() != null)
+                .map(ImportResult::getIndex)
+                .toList());
+        Assertions.assertEquals(0, cachingFilmStorage.statistics().pendingWrites());
+        Assertions.assertEquals(Set.of(user.getId()), jdbcFilmStorage.findById(film.getId()).getUserLikes());
+        Assertions.assertEquals(1, jdbcFilmStorage.findById(film.getId()).getLikes());
+        Assertions.assertEquals(1, filmStorage.findById(film.getId()).getLikes());
+
+        List<ImportResult> friendResults = userStorage.applyFriendships(List.of(
+                Friendship.builder().userId(user.getId()).friendId(other.getId()).build(),
+                Friendship.builder().userId(other.getId()).friendId(user.getId()).build(),
+                Friendship.builder().userId(other.getId()).friendId(user.getId()).action(BatchAction.REMOVE).build(),
+                Friendship.builder().userId(user.getId()).friendId(other.getId()).build()));
+        Assertions.assertEquals(List.of(1), friendResults.stream()
+                .filter(result -> result.getError() != null)
+                .map(ImportResult::getIndex)
+                .toList());
+        Assertions.assertEquals(List.of(other.getId()),
+                friendshipService.getAllFriends(user.getId()).stream().map(User::getId).toList());
+    }
+
+    @Test
+    public void shouldRejectInvalidUpdateAndDropUnwritableChanges() {
+        CachingFilmStorage cachingFilmStorage = Assertions.assertInstanceOf(CachingFilmStorage.class, filmStorage);
+        Film film = filmStorage.create(film("Исходный"));
+
+        Film invalid = film("");
+        invalid.setId(film.getId());
+        Assertions.assertThrows(ValidationException.class, () -> filmStorage.update(invalid));
+        Assertions.assertThrows(ValidationException.class, () -> jdbcFilmStorage.update(invalid));
+        Assertions.assertEquals(0, cachingFilmStorage.statistics().pendingWrites());
+
+        Film tooLong = film("д".repeat(300));
+        tooLong.setId(film.getId());
+        filmStorage.update(tooLong);
+        cachingFilmStorage.flush();
+
+        Assertions.assertEquals(0, cachingFilmStorage.statistics().pendingWrites());
+        Assertions.assertEquals("Исходный", jdbcFilmStorage.findById(film.getId()).getName());
+        Assertions.assertEquals("Исходный", filmStorage.findById(film.getId()).getName());
+    }
+
+    @Test
+    public void shouldImportInBatchesInDatabase() {
+        List<ImportResult> filmResults = jdbcFilmStorage.createAll(List.of(film("Первый"), film(""), film("Третий")));
+        Assertions.assertEquals(List.of(1L, 2L), filmResults.stream()
+                .filter(result -> result.getError() == null)
+                .map(ImportResult::getId)
+                .toList());
+        List<ImportResult> userResults = userStorage.createAll(List.of(user("first"), user("second")));
+        Assertions.assertEquals(List.of(1L, 2L), userResults.stream().map(ImportResult::getId).toList());
+
+        List<ImportResult> likeResults = jdbcFilmStorage.applyLikes(List.of(
+                Like.builder().filmId(2L).userId(1L).build(),
+                Like.builder().filmId(2L).userId(1L).build(),
+                Like.builder().filmId(5L).userId(1L).build(),
+                Like.builder().filmId(2L).userId(2L).build()));
+        Assertions.assertEquals(2, likeResults.stream().filter(result -> result.getError() != null).count());
+        Assertions.assertEquals(2, jdbcFilmStorage.findById(2L).getLikes());
+        Assertions.assertEquals(Set.of(1L, 2L), jdbcFilmStorage.findById(2L).getUserLikes());
+
+        List<ImportResult> friendResults = userStorage.applyFriendships(List.of(
+                Friendship.builder().userId(1L).friendId(2L).build(),
+                Friendship.builder().userId(2L).friendId(1L).build()));
+        Assertions.assertNull(friendResults.get(0).getError());
+        Assertions.assertNotNull(friendResults.get(1).getError());
+        Assertions.assertEquals(List.of(2L), friendshipService.getAllFriends(1L).stream().map(User::getId).toList());
+
+        List<ImportResult> batchResults = jdbcFilmStorage.applyLikes(List.of(
+                Like.builder().filmId(2L).userId(1L).action(BatchAction.REMOVE).build(),
+                Like.builder().filmId(1L).userId(2L).build(),
+                Like.builder().filmId(1L).userId(2L).action(BatchAction.REMOVE).build(),
+                Like.builder().filmId(1L).userId(1L).action(BatchAction.REMOVE).build()));
+        Assertions.assertEquals(List.of(3), batchResults.stream()
+                .filter(result -> result.getError() != null)
+                .map(ImportResult::getIndex)
+                .toList());
+        Assertions.assertEquals(1, jdbcFilmStorage.findById(2L).getLikes());
+        Assertions.assertEquals(Set.of(2L), jdbcFilmStorage.findById(2L).getUserLikes());
+        Assertions.assertEquals(0, jdbcFilmStorage.findById(1L).getLikes());
+
+        userStorage.applyFriendships(List.of(
+                Friendship.builder().userId(2L).friendId(1L).action(BatchAction.REMOVE).build()));
+        Assertions.assertEquals(List.of(), friendshipService.getAllFriends(1L));
+        Assertions.assertEquals(List.of(), friendshipService.getAllFriends(2L));
+    }
+
+    @Test
+    public void shouldFindMutualFriendsInDatabase() {
+        User user = userStorage.create(user("user"));
+        User other = userStorage.create(user("other"));
+        User common = userStorage.create(user("common"));
+
+        friendshipService.addFriends(user.getId(), common.getId());
+        friendshipService.addFriends(other.getId(), common.getId());
+        friendshipService.addFriends(user.getId(), other.getId());
+
+        Assertions.assertEquals(List.of(common.getId()),
+                friendshipService.listMutualFriend(user.getId(), other.getId()).stream().map(User::getId).toList());
+        Assertions.assertEquals(Set.of(user.getId(), other.getId()),
+                userStorage.findById(common.getId()).getFriends());
+
+        friendshipService.deleteFromFriends(user.getId(), common.getId());
+        Assertions.assertTrue(friendshipService.listMutualFriend(user.getId(), other.getId()).isEmpty());
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Описание")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(120L)
+                .build();
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .email(login + "@mail.ru")
+                .login(login)
+                .name(login)
+                .birthday(birthday)
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.filmorate.model.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+class LongHashSetTests {
+
+    private static final int INITIAL_MASK = 3;
+
+    @Test
+    public void shouldFindKeysWhoseProbeChainWrapsAroundTableEnd() {
+        long[] lastSlot = keysWithSlot(INITIAL_MASK, 2);
+        LongHashSet set = new LongHashSet();
+        set.addLong(lastSlot[0]);
+        set.addLong(lastSlot[1]);
+
+        Assertions.assertArrayEquals(new long[]{lastSlot[1], lastSlot[0]}, set.toLongArray(),
+                "Второй ключ должен перейти в начало таблицы");
+        Assertions.assertTrue(set.containsLong(lastSlot[0]));
+        Assertions.assertTrue(set.containsLong(lastSlot[1]));
+        Assertions.assertFalse(set.addLong(lastSlot[1]));
+    }
+
+    @Test
+    public void shouldShiftCollidingKeysBackOnRemoval() {
+        long[] lastSlot = keysWithSlot(INITIAL_MASK, 2);
+        LongHashSet wrapped = new LongHashSet();
+        wrapped.addLong(lastSlot[0]);
+        wrapped.addLong(lastSlot[1]);
+
+        Assertions.assertTrue(wrapped.removeLong(lastSlot[0]));
+        Assertions.assertTrue(wrapped.containsLong(lastSlot[1]), "Ключ за концом таблицы должен сдвинуться назад");
+        Assertions.assertEquals(1, wrapped.size());
+
+        long[] firstSlot = keysWithSlot(0, 3);
+        LongHashSet chain = new LongHashSet();
+        for (long key : firstSlot) {
+            chain.addLong(key);
+        }
+        Assertions.assertTrue(chain.removeLong(firstSlot[1]));
+        Assertions.assertTrue(chain.containsLong(firstSlot[0]));
+        Assertions.assertTrue(chain.containsLong(firstSlot[2]), "Цепочка не должна разрываться после удаления");
+        Assertions.assertFalse(chain.containsLong(firstSlot[1]));
+        Assertions.assertFalse(chain.removeLong(firstSlot[1]));
+    }
+
+    @Test
+    public void shouldStoreZeroKeySeparately() {
+        LongHashSet set = new LongHashSet();
+        Assertions.assertFalse(set.containsLong(0));
+        Assertions.assertTrue(set.addLong(0));
+        Assertions.assertFalse(set.addLong(0));
+        set.addLong(7);
+
+        Assertions.assertEquals(2, set.size());
+        Assertions.assertTrue(set.contains(0L));
+        Assertions.assertEquals(Set.of(0L, 7L), new HashSet<>(set));
+        Assertions.assertTrue(set.removeLong(0));
+        Assertions.assertFalse(set.removeLong(0));
+        Assertions.assertArrayEquals(new long[]{7}, set.toLongArray());
+    }
+
+    @Test
+    public void shouldMatchHashSetThroughResizesAndRemovals() {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            long value = random.nextInt(50_000) - 25_000;
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(value), set.removeLong(value));
+            } else {
+                Assertions.assertEquals(expected.add(value), set.addLong(value));
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), set.size());
+        Assertions.assertEquals(expected, new HashSet<>(set));
+        for (long value = -25_000; value < 25_000; value++) {
+            Assertions.assertEquals(expected.contains(value), set.containsLong(value));
+        }
+
+        set.clear();
+        Assertions.assertTrue(set.isEmpty());
+        Assertions.assertTrue(set.addLong(1));
+    }
+
+    @Test
+    public void shouldIterateOverSnapshotWhileSetIsModified() {
+        LongHashSet set = new LongHashSet(List.of(1L, 2L, 3L));
+        List<Long> iterated = new ArrayList<>();
+        Iterator<Long> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            Long value = iterator.next();
+            iterated.add(value);
+            for (long added = 100; added < 200; added++) {
+                set.addLong(added);
+            }
+            if (value == 2L) {
+                iterator.remove();
+            }
+        }
+
+        iterated.sort(null);
+        Assertions.assertEquals(List.of(1L, 2L, 3L), iterated, "Итератор должен обходить снимок");
+        Assertions.assertFalse(set.containsLong(2));
+        Assertions.assertEquals(102, set.size());
+    }
+
+    @Test
+    public void shouldKeepSnapshotUnchangedByLaterWrites() {
+        LongHashSet set = new LongHashSet(List.of(1L, 2L, 3L));
+        LongHashSet snapshot = set.snapshot();
+        set.addLong(4);
+        set.removeLong(1);
+
+        Assertions.assertEquals(Set.of(1L, 2L, 3L), new HashSet<>(snapshot), "Снимок не должен видеть новые записи");
+        Assertions.assertEquals(Set.of(2L, 3L, 4L), new HashSet<>(set));
+
+        snapshot.addLong(5);
+        Assertions.assertFalse(set.containsLong(5));
+        Assertions.assertEquals(4, snapshot.size());
+    }
+
+    @Test
+    public void shouldUseLessMemoryPerLikeThanBoxedHashSet() {
+        int likes = 10_000;
+
+        Set<Long> boxed = new HashSet<>();
+        LongHashSet primitive = new LongHashSet();
+        for (long userId = 1; userId <= likes; userId++) {
+            boxed.add(userId * 1_000);
+            primitive.addLong(userId * 1_000);
+        }
+        long boxedBytes = GraphLayout.parseInstance(boxed).totalSize();
+        long primitiveBytes = GraphLayout.parseInstance(primitive).totalSize();
+
+        Assertions.assertTrue(primitiveBytes * 2 < boxedBytes,
+                "LongHashSet должен занимать как минимум вдвое меньше памяти: " + boxedBytes + " / " + primitiveBytes);
+    }
+
+    private static long[] keysWithSlot(int slot, int count) {
+        long[] keys = new long[count];
+        int found = 0;
+        for (long key = 1; found < count; key++) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            if (((int) (hash ^ (hash >>> 32)) & INITIAL_MASK) == slot) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+}